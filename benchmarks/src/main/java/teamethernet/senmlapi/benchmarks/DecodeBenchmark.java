@@ -0,0 +1,116 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import teamethernet.senmlapi.Label;
+import teamethernet.senmlapi.SenMLAPI;
+import teamethernet.senmlapi.SenMLReader;
+import teamethernet.senmlapi.SenMLRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+
+    @Param
+    public Packs.Shape shape;
+
+    @Param
+    public Packs.Format format;
+
+    private byte[] pack;
+    private SenMLAPI<?> decoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        pack = Packs.encode(format, Packs.records(shape));
+        decoded = format.init(pack);
+    }
+
+    @Benchmark
+    public SenMLAPI<?> init() throws IOException {
+        return format.init(pack);
+    }
+
+    @Benchmark
+    public SenMLAPI<?> initParallel() throws IOException {
+        return format.init(pack, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public void getValue(final Blackhole blackhole) {
+        for (int i = 0; i < decoded.size(); i++) {
+            blackhole.consume(decoded.getValue(Label.NAME, i));
+        }
+    }
+
+    @Benchmark
+    public void getRecords(final Blackhole blackhole) throws IOException {
+        blackhole.consume(decoded.getRecords());
+    }
+
+    @Benchmark
+    public void reader(final Blackhole blackhole) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(pack);
+
+        try (final SenMLReader reader = format == Packs.Format.JSON ? SenMLReader.initJson(buffer) : SenMLReader.initCbor(buffer)) {
+            SenMLRecord record;
+            while ((record = reader.next()) != null) {
+                blackhole.consume(record);
+            }
+        }
+    }
+
+}
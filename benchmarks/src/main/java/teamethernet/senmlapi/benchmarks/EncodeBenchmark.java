@@ -0,0 +1,131 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import teamethernet.senmlapi.Label;
+import teamethernet.senmlapi.SenMLAPI;
+import teamethernet.senmlapi.SenMLWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodeBenchmark {
+
+    @Param
+    public Packs.Shape shape;
+
+    @Param
+    public Packs.Format format;
+
+    private List<Label.Pair[]> records;
+    private SenMLAPI<?> populated;
+    private SenMLAPI<?> reusable;
+    private ByteBuffer output;
+
+    @Setup
+    public void setUp() throws IOException {
+        records = Packs.records(shape);
+        populated = format.init(Packs.encode(format, records));
+        reusable = format.init();
+        output = ByteBuffer.allocateDirect(populated.getSenML().length);
+    }
+
+    @Benchmark
+    public SenMLAPI<?> addRecord() {
+        final SenMLAPI<?> senMLAPI = format.init();
+
+        for (final Label.Pair[] record : records) {
+            senMLAPI.addRecord(record);
+        }
+
+        return senMLAPI;
+    }
+
+    @Benchmark
+    public byte[] getSenML() throws IOException {
+        return populated.getSenML();
+    }
+
+    @Benchmark
+    public byte[] addRecordAndGetSenML() throws IOException {
+        return addRecord().getSenML();
+    }
+
+    @Benchmark
+    public int resetAndGetSenML() throws IOException {
+        reusable.reset();
+
+        for (final Label.Pair[] record : records) {
+            reusable.addRecord(record);
+        }
+
+        output.clear();
+        return reusable.getSenML(output);
+    }
+
+    @Benchmark
+    public byte[] writer() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (final SenMLWriter writer = format == Packs.Format.JSON ? SenMLWriter.initJson(out) : SenMLWriter.initCbor(out)) {
+            for (final Label.Pair[] record : records) {
+                writer.addRecord(record);
+            }
+        }
+
+        return out.toByteArray();
+    }
+
+}
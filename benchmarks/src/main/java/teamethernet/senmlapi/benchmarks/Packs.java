@@ -0,0 +1,158 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi.benchmarks;
+
+import teamethernet.senmlapi.Label;
+import teamethernet.senmlapi.SenMLAPI;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public final class Packs {
+
+    public enum Shape {
+        SMALL,
+        TIME_SERIES,
+        STRING_DATA,
+        BASE_FIELDS
+    }
+
+    public enum Format {
+        JSON,
+        CBOR;
+
+        SenMLAPI<?> init() {
+            return this == JSON ? SenMLAPI.initJson() : SenMLAPI.initCbor();
+        }
+
+        SenMLAPI<?> init(final byte[] buffer) throws IOException {
+            return this == JSON ? SenMLAPI.initJson(buffer) : SenMLAPI.initCbor(buffer);
+        }
+
+        SenMLAPI<?> init(final byte[] buffer, final ForkJoinPool pool) throws IOException {
+            return this == JSON ? SenMLAPI.initJson(buffer, pool) : SenMLAPI.initCbor(buffer, pool);
+        }
+    }
+
+    private static final int TIME_SERIES_RECORDS = 10_000;
+    private static final int RECORDS = 1_000;
+    private static final double START_TIME = 1.5e9;
+
+    private Packs() {
+    }
+
+    static List<Label.Pair[]> records(final Shape shape) {
+        final Random random = new Random(shape.ordinal());
+        final List<Label.Pair[]> records = new ArrayList<>();
+
+        switch (shape) {
+            case SMALL:
+                records.add(new Label.Pair[]{
+                        Label.BASE_NAME.attachValue("urn:dev:ow:10e2073a01080063:"),
+                        Label.BASE_TIME.attachValue(START_TIME),
+                        Label.NAME.attachValue("voltage"),
+                        Label.UNIT.attachValue("V"),
+                        Label.VALUE.attachValue(120.1)});
+                records.add(new Label.Pair[]{
+                        Label.NAME.attachValue("current"),
+                        Label.UNIT.attachValue("A"),
+                        Label.VALUE.attachValue(1.2)});
+                records.add(new Label.Pair[]{
+                        Label.NAME.attachValue("door"),
+                        Label.BOOLEAN_VALUE.attachValue(false)});
+                break;
+            case TIME_SERIES:
+                records.add(new Label.Pair[]{
+                        Label.BASE_NAME.attachValue("urn:dev:ow:10e2073a01080063:"),
+                        Label.BASE_TIME.attachValue(START_TIME),
+                        Label.BASE_UNIT.attachValue("Cel"),
+                        Label.NAME.attachValue("temperature"),
+                        Label.TIME.attachValue(0.0),
+                        Label.VALUE.attachValue(20.0)});
+                for (int i = 1; i < TIME_SERIES_RECORDS; i++) {
+                    records.add(new Label.Pair[]{
+                            Label.NAME.attachValue("temperature"),
+                            Label.TIME.attachValue((double) i),
+                            Label.VALUE.attachValue(20.0 + random.nextGaussian())});
+                }
+                break;
+            case STRING_DATA:
+                for (int i = 0; i < RECORDS; i++) {
+                    final byte[] data = new byte[256];
+                    random.nextBytes(data);
+                    records.add(new Label.Pair[]{
+                            Label.NAME.attachValue("urn:dev:ow:10e2073a01080063:log" + i),
+                            Label.STRING_VALUE.attachValue("status message " + i + " from device with a fairly long text"),
+                            Label.DATA_VALUE.attachData(data)});
+                }
+                break;
+            case BASE_FIELDS:
+                for (int i = 0; i < RECORDS; i++) {
+                    records.add(new Label.Pair[]{
+                            Label.BASE_NAME.attachValue("urn:dev:ow:" + (i % 16) + ":"),
+                            Label.BASE_TIME.attachValue(START_TIME + i),
+                            Label.BASE_UNIT.attachValue("W"),
+                            Label.BASE_VALUE.attachValue(100.0),
+                            Label.BASE_SUM.attachValue(1000.0),
+                            Label.NAME.attachValue("power"),
+                            Label.TIME.attachValue(0.5),
+                            Label.VALUE.attachValue(random.nextDouble()),
+                            Label.SUM.attachValue(random.nextDouble())});
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(shape.toString());
+        }
+
+        return records;
+    }
+
+    static byte[] encode(final Format format, final List<Label.Pair[]> records) throws IOException {
+        final SenMLAPI<?> senMLAPI = format.init();
+
+        for (final Label.Pair[] record : records) {
+            senMLAPI.addRecord(record);
+        }
+
+        return senMLAPI.getSenML();
+    }
+
+}
@@ -37,50 +37,94 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package teamethernet.senmlapi;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BinaryNode;
 import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
 
 public class CborFormatter implements Formatter {
 
-    private static final ObjectMapper MAPPER = new ObjectMapper(new CBORFactory());
+    static final ObjectMapper MAPPER = new ObjectMapper(new CBORFactory());
 
     private final JsonNode RECORDS;
+    private final boolean integerKeys;
 
     CborFormatter() {
+        this(false);
+    }
+
+    CborFormatter(final boolean integerKeys) {
         RECORDS = MAPPER.createArrayNode();
+        this.integerKeys = integerKeys;
     }
 
     CborFormatter(final byte[] cborData) throws IOException {
+        this(cborData, false);
+    }
+
+    CborFormatter(final byte[] cborData, final boolean integerKeys) throws IOException {
         RECORDS = MAPPER.readValue(cborData, JsonNode.class);
+        this.integerKeys = integerKeys;
+    }
+
+    CborFormatter(final JsonNode records) {
+        RECORDS = records;
+        this.integerKeys = false;
     }
 
     public ObjectMapper getMapper() {
         return MAPPER;
     }
 
+    public LabelRegistry getLabelRegistry() {
+        return LabelRegistry.CBOR;
+    }
+
     public JsonNode getRecords() {
         return RECORDS;
     }
 
     public String getStringValue(Label<String> label, JsonNode record) {
-        return record.get(label.getFormattedLabel(this.getClass())).asText();
+        final JsonNode value = record.get(LabelRegistry.CBOR.getFormattedLabel(label));
+        return value.isBinary() ? DataValues.encode(((BinaryNode) value).binaryValue()) : value.asText();
     }
 
     public Integer getIntegerValue(Label<Integer> label, JsonNode record) {
-        return record.get(label.getFormattedLabel(this.getClass())).intValue();
+        return getInt(label, record);
     }
 
     public Double getDoubleValue(Label<Double> label, JsonNode record) {
-        return record.get(label.getFormattedLabel(this.getClass())).doubleValue();
+        return getDouble(label, record);
     }
 
     public Boolean getBooleanValue(Label<Boolean> label, JsonNode record) {
-        return record.get(label.getFormattedLabel(this.getClass())).booleanValue();
+        return getBoolean(label, record);
+    }
+
+    public double getDouble(Label<Double> label, JsonNode record) {
+        return record.get(LabelRegistry.CBOR.getFormattedLabel(label)).doubleValue();
+    }
+
+    public int getInt(Label<Integer> label, JsonNode record) {
+        return record.get(LabelRegistry.CBOR.getFormattedLabel(label)).intValue();
+    }
+
+    public boolean getBoolean(Label<Boolean> label, JsonNode record) {
+        return record.get(LabelRegistry.CBOR.getFormattedLabel(label)).booleanValue();
+    }
+
+    public JsonNode createDataNode(final byte[] data) {
+        return BinaryNode.valueOf(data);
     }
 
     public void addRecord(final byte[] cborData) throws IOException {
@@ -89,7 +133,56 @@ public class CborFormatter implements Formatter {
     }
 
     public byte[] getSenML(final JsonNode rootNode) throws IOException {
-        return MAPPER.writeValueAsBytes(rootNode);
+        if (!integerKeys) {
+            return MAPPER.writeValueAsBytes(rootNode);
+        }
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (final CBORGenerator generator = ((CBORFactory) MAPPER.getFactory()).createGenerator(outputStream)) {
+            writeWithIntegerKeys(generator, rootNode);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    public void writeSenML(final JsonNode rootNode, final OutputStream outputStream) throws IOException {
+        try (final CBORGenerator generator = ((CBORFactory) MAPPER.getFactory()).createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            if (integerKeys) {
+                writeWithIntegerKeys(generator, rootNode);
+            } else {
+                MAPPER.writeTree(generator, rootNode);
+            }
+        }
+    }
+
+    private static void writeWithIntegerKeys(final CBORGenerator generator, final JsonNode node) throws IOException {
+        if (node.isArray()) {
+            generator.writeStartArray(node.size());
+            for (final JsonNode record : node) {
+                writeWithIntegerKeys(generator, record);
+            }
+            generator.writeEndArray();
+        } else if (node.isObject()) {
+            generator.writeStartObject(node.size());
+            final Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                final Map.Entry<String, JsonNode> field = fields.next();
+                final Label label = Label.fromCborKey(field.getKey());
+
+                if (label == null) {
+                    generator.writeFieldName(field.getKey());
+                } else {
+                    generator.writeFieldId(label.getCborKey());
+                }
+                MAPPER.writeTree(generator, field.getValue());
+            }
+            generator.writeEndObject();
+        } else {
+            MAPPER.writeTree(generator, node);
+        }
     }
 
 }
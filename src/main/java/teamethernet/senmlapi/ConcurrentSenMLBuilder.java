@@ -0,0 +1,163 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pack builder that many threads can add records to at the same time. Every thread appends to its own
+ * lock-free queue, so there is no shared lock on {@link #addRecord(Label.Pair...)}. The queues are merged
+ * when the pack is written, keeping the records of each thread in the order they were added.
+ * Writing the pack takes the records added so far, so the builder can keep collecting the next pack.
+ * <p>
+ * Base fields only apply to the later records of the thread that added them. Records that depend on
+ * base fields are written resolved, so the pack itself carries no base fields that could change how
+ * the records of other threads resolve.
+ */
+public class ConcurrentSenMLBuilder {
+
+    private final Class<? extends Formatter> type;
+    private final Set<Producer> producers = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<Producer> producer = ThreadLocal.withInitial(Producer::new);
+
+    private ConcurrentSenMLBuilder(final Class<? extends Formatter> type) {
+        this.type = type;
+    }
+
+    public static ConcurrentSenMLBuilder initJson() {
+        return new ConcurrentSenMLBuilder(JsonFormatter.class);
+    }
+
+    public static ConcurrentSenMLBuilder initCbor() {
+        return new ConcurrentSenMLBuilder(CborFormatter.class);
+    }
+
+    public void addRecord(final Label.Pair... pairs) {
+        addRecord(SenMLRecord.of(pairs));
+    }
+
+    public void addRecord(final SenMLRecord record) {
+        final Producer current = producer.get();
+        current.records.add(record);
+        register(current);
+    }
+
+    /**
+     * Adds the producer to the set that is drained, unless it is already in it. Producers leave the set
+     * when a drain finds them empty, so threads that stopped adding records are not kept around.
+     */
+    private void register(final Producer current) {
+        if (!current.registered.get() && current.registered.compareAndSet(false, true)) {
+            producers.add(current);
+        }
+    }
+
+    public byte[] getSenML() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        getSenML(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    public synchronized void getSenML(final OutputStream outputStream) throws IOException {
+        try (final SenMLWriter writer = SenMLWriter.init(type, outputStream)) {
+            for (final Producer current : producers) {
+                SenMLRecord record;
+                while ((record = current.records.poll()) != null) {
+                    writer.addRecord(current.resolve(record));
+                }
+
+                producers.remove(current);
+                current.registered.set(false);
+                if (!current.records.isEmpty()) {
+                    register(current);
+                }
+            }
+        }
+    }
+
+    int getProducerCount() {
+        return producers.size();
+    }
+
+    private static final class Producer {
+
+        private final Queue<SenMLRecord> records = new ConcurrentLinkedQueue<>();
+        private final SenMLResolver resolver = new SenMLResolver();
+        private final AtomicBoolean registered = new AtomicBoolean();
+
+        /**
+         * Returns the record unchanged when neither it nor the earlier records of this producer set base
+         * fields, and otherwise the resolved record, keeping its base version.
+         */
+        private SenMLRecord resolve(final SenMLRecord record) {
+            final boolean hasBaseFields = resolver.hasBaseFields();
+            Label.Pair version = null;
+
+            for (final Label.Pair pair : record.getPairs()) {
+                if (pair.getLabel() == Label.BASE_VERSION) {
+                    version = pair;
+                }
+            }
+
+            final ResolvedRecord resolved = resolver.resolve(record);
+            if (!hasBaseFields && !resolver.hasBaseFields() && version == null) {
+                return record;
+            }
+
+            final SenMLRecord resolvedRecord = resolved.toSenMLRecord();
+            if (version == null) {
+                return resolvedRecord;
+            }
+
+            final List<Label.Pair> pairs = new ArrayList<>(resolvedRecord.getPairs());
+            pairs.add(0, version);
+            return new SenMLRecord(pairs);
+        }
+
+    }
+
+}
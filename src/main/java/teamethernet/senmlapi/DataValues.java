@@ -0,0 +1,111 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.Base64Variants;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Conversions between binary data values and the unpadded base64url text that RFC 8428 section 5
+ * uses for them in JSON. Padding is accepted when decoding.
+ */
+final class DataValues {
+
+    static final Base64Variant BASE64URL = Base64Variants.MODIFIED_FOR_URL;
+
+    private static final char PADDING = '=';
+
+    private DataValues() {
+    }
+
+    static String encode(final byte[] data) {
+        return BASE64URL.encode(data);
+    }
+
+    static byte[] decode(final String text) {
+        final byte[] data = new byte[decodedLength(text)];
+        decode(text, ByteBuffer.wrap(data));
+        return data;
+    }
+
+    /**
+     * Decodes the text into the buffer starting at its position and returns the number of bytes written.
+     */
+    static int decode(final String text, final ByteBuffer target) {
+        final int start = target.position();
+        int bits = 0;
+        int bitCount = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+
+            if (c == PADDING) {
+                break;
+            }
+
+            final int sextet = BASE64URL.decodeBase64Char(c);
+            if (sextet < 0) {
+                throw new IllegalArgumentException("Illegal base64url character '" + c + "' at index " + i);
+            }
+
+            bits = (bits << 6) | sextet;
+            bitCount += 6;
+
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                target.put((byte) (bits >> bitCount));
+                bits &= (1 << bitCount) - 1;
+            }
+        }
+
+        return target.position() - start;
+    }
+
+    private static int decodedLength(final String text) {
+        int length = text.length();
+
+        while (length > 0 && text.charAt(length - 1) == PADDING) {
+            length--;
+        }
+
+        return length * 6 / 8;
+    }
+
+}
@@ -41,11 +41,14 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 interface Formatter {
 
     ObjectMapper getMapper();
 
+    LabelRegistry getLabelRegistry();
+
     JsonNode getRecords();
 
     String getStringValue(Label<String> label, JsonNode record);
@@ -56,8 +59,18 @@ interface Formatter {
 
     Boolean getBooleanValue(Label<Boolean> label, JsonNode record);
 
+    double getDouble(Label<Double> label, JsonNode record);
+
+    int getInt(Label<Integer> label, JsonNode record);
+
+    boolean getBoolean(Label<Boolean> label, JsonNode record);
+
+    JsonNode createDataNode(byte[] data);
+
     void addRecord(byte[] data) throws IOException;
 
     byte[] getSenML(JsonNode rootNode) throws IOException;
 
+    void writeSenML(JsonNode rootNode, OutputStream outputStream) throws IOException;
+
 }
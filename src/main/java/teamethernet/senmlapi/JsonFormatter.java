@@ -38,16 +38,19 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package teamethernet.senmlapi;
 
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 public class JsonFormatter implements Formatter {
 
-    private static final ObjectMapper MAPPER = new ObjectMapper(new JsonFactory());
+    static final ObjectMapper MAPPER = new ObjectMapper(new JsonFactory());
 
     private final JsonNode RECORDS;
 
@@ -59,28 +62,52 @@ public class JsonFormatter implements Formatter {
         RECORDS = MAPPER.readTree(jsonData);
     }
 
+    JsonFormatter(final JsonNode records) {
+        RECORDS = records;
+    }
+
     public ObjectMapper getMapper() {
         return MAPPER;
     }
 
+    public LabelRegistry getLabelRegistry() {
+        return LabelRegistry.JSON;
+    }
+
     public JsonNode getRecords() {
         return RECORDS;
     }
 
     public String getStringValue(Label<String> label, JsonNode record) {
-        return record.get(label.getFormattedLabel(this.getClass())).asText();
+        return record.get(LabelRegistry.JSON.getFormattedLabel(label)).asText();
     }
 
     public Integer getIntegerValue(Label<Integer> label, JsonNode record) {
-        return record.get(label.getFormattedLabel(this.getClass())).intValue();
+        return getInt(label, record);
     }
 
     public Double getDoubleValue(Label<Double> label, JsonNode record) {
-        return record.get(label.getFormattedLabel(this.getClass())).doubleValue();
+        return getDouble(label, record);
     }
 
     public Boolean getBooleanValue(Label<Boolean> label, JsonNode record) {
-        return record.get(label.getFormattedLabel(this.getClass())).booleanValue();
+        return getBoolean(label, record);
+    }
+
+    public double getDouble(Label<Double> label, JsonNode record) {
+        return record.get(LabelRegistry.JSON.getFormattedLabel(label)).doubleValue();
+    }
+
+    public int getInt(Label<Integer> label, JsonNode record) {
+        return record.get(LabelRegistry.JSON.getFormattedLabel(label)).intValue();
+    }
+
+    public boolean getBoolean(Label<Boolean> label, JsonNode record) {
+        return record.get(LabelRegistry.JSON.getFormattedLabel(label)).booleanValue();
+    }
+
+    public JsonNode createDataNode(final byte[] data) {
+        return TextNode.valueOf(DataValues.encode(data));
     }
 
     public void addRecord(final byte[] cborData) throws IOException {
@@ -92,4 +119,11 @@ public class JsonFormatter implements Formatter {
         return MAPPER.writeValueAsBytes(rootNode);
     }
 
+    public void writeSenML(final JsonNode rootNode, final OutputStream outputStream) throws IOException {
+        try (final JsonGenerator generator = MAPPER.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            MAPPER.writeTree(generator, rootNode);
+        }
+    }
+
 }
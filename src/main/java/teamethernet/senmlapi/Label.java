@@ -37,27 +37,79 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package teamethernet.senmlapi;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 public abstract class Label<T> {
 
+    enum ValueType {
+        STRING, DOUBLE, INTEGER, BOOLEAN
+    }
+
     private final Class<T> type;
+    private final ValueType valueType;
     private final String label;
     private final String cborLabel;
+    private final int cborKey;
+    private final int index;
 
-    private Label(final Class<T> type, final String label, final String cborLabel) {
+    private Label(final Class<T> type, final String label, final int cborKey, final int index) {
         this.type = type;
+        this.valueType = getValueType(type);
         this.label = label;
-        this.cborLabel = cborLabel;
+        this.cborLabel = String.valueOf(cborKey);
+        this.cborKey = cborKey;
+        this.index = index;
+    }
+
+    private static ValueType getValueType(final Class<?> type) {
+        if (type == String.class) {
+            return ValueType.STRING;
+        } else if (type == Double.class) {
+            return ValueType.DOUBLE;
+        } else if (type == Integer.class) {
+            return ValueType.INTEGER;
+        } else if (type == Boolean.class) {
+            return ValueType.BOOLEAN;
+        } else {
+            throw new UnsupportedOperationException(
+                    type + " is not supported. Use String, Double, Integer or Boolean");
+        }
     }
 
     Class<T> getClassType() {
         return type;
     }
 
+    ValueType getValueType() {
+        return valueType;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
     public Pair attachValue(final T value) {
-        return new Pair(value);
+        return new Pair(value, null);
+    }
+
+    /**
+     * Attaches binary data to {@link #DATA_VALUE}. CBOR encodes it as a byte string and JSON as
+     * base64url text, as described in RFC 8428. The array is not copied and must not be changed
+     * afterwards.
+     */
+    public Pair attachData(final byte[] data) {
+        if (this != DATA_VALUE) {
+            throw new UnsupportedOperationException(label + " does not hold binary data. Use vd");
+        }
+
+        return new Pair(null, data);
+    }
+
+    public int getCborKey() {
+        return cborKey;
     }
 
     public <S extends Formatter> String getFormattedLabel(final Class<S> type) {
@@ -70,73 +122,110 @@ public abstract class Label<T> {
         }
     }
 
-    public final static Label<String> BASE_NAME = new Label<String>(String.class, "bn", "-2") {
+    public final static Label<String> BASE_NAME = new Label<String>(String.class, "bn", -2, 0) {
     };
-    public final static Label<Double> BASE_TIME = new Label<Double>(Double.class, "bt", "-3") {
+    public final static Label<Double> BASE_TIME = new Label<Double>(Double.class, "bt", -3, 1) {
     };
-    public final static Label<String> BASE_UNIT = new Label<String>(String.class, "bu", "-4") {
+    public final static Label<String> BASE_UNIT = new Label<String>(String.class, "bu", -4, 2) {
     };
-    public final static Label<Double> BASE_VALUE = new Label<Double>(Double.class, "bv", "-5") {
+    public final static Label<Double> BASE_VALUE = new Label<Double>(Double.class, "bv", -5, 3) {
     };
-    public final static Label<Double> BASE_SUM = new Label<Double>(Double.class, "bs", "-6") {
+    public final static Label<Double> BASE_SUM = new Label<Double>(Double.class, "bs", -6, 4) {
     };
-    public final static Label<Integer> BASE_VERSION = new Label<Integer>(Integer.class, "bver", "-1") {
+    public final static Label<Integer> BASE_VERSION = new Label<Integer>(Integer.class, "bver", -1, 5) {
     };
-    public final static Label<String> NAME = new Label<String>(String.class, "n", "0") {
+    public final static Label<String> NAME = new Label<String>(String.class, "n", 0, 6) {
     };
-    public final static Label<String> UNIT = new Label<String>(String.class, "u", "1") {
+    public final static Label<String> UNIT = new Label<String>(String.class, "u", 1, 7) {
     };
-    public final static Label<Double> VALUE = new Label<Double>(Double.class, "v", "2") {
+    public final static Label<Double> VALUE = new Label<Double>(Double.class, "v", 2, 8) {
     };
-    public final static Label<String> STRING_VALUE = new Label<String>(String.class, "vs", "3") {
+    public final static Label<String> STRING_VALUE = new Label<String>(String.class, "vs", 3, 9) {
     };
-    public final static Label<Boolean> BOOLEAN_VALUE = new Label<Boolean>(Boolean.class, "vb", "4") {
+    public final static Label<Boolean> BOOLEAN_VALUE = new Label<Boolean>(Boolean.class, "vb", 4, 10) {
     };
-    public final static Label<String> DATA_VALUE = new Label<String>(String.class, "vd", "8") {
+    public final static Label<String> DATA_VALUE = new Label<String>(String.class, "vd", 8, 11) {
     };
-    public final static Label<Double> SUM = new Label<Double>(Double.class, "s", "5") {
+    public final static Label<Double> SUM = new Label<Double>(Double.class, "s", 5, 12) {
     };
-    public final static Label<Double> TIME = new Label<Double>(Double.class, "t", "6") {
+    public final static Label<Double> TIME = new Label<Double>(Double.class, "t", 6, 13) {
     };
-    public final static Label<Double> UPDATE_TIME = new Label<Double>(Double.class, "ut", "7") {
+    public final static Label<Double> UPDATE_TIME = new Label<Double>(Double.class, "ut", 7, 14) {
     };
 
+    private final static List<Label> VALUES = Collections.unmodifiableList(Arrays.asList(
+            BASE_NAME, BASE_TIME, BASE_UNIT, BASE_VALUE, BASE_SUM, BASE_VERSION, NAME, UNIT,
+            VALUE, STRING_VALUE, BOOLEAN_VALUE, DATA_VALUE, SUM, TIME, UPDATE_TIME));
+
+    private final static int MIN_CBOR_KEY = -6;
+    private final static Label[] CBOR_KEY_TO_VALUE = new Label[VALUES.size()];
+
+    static {
+        for (final Label label : VALUES) {
+            CBOR_KEY_TO_VALUE[label.cborKey - MIN_CBOR_KEY] = label;
+        }
+    }
+
+    static List<Label> values() {
+        return VALUES;
+    }
+
+    static Label fromCborKey(final int cborKey) {
+        final int index = cborKey - MIN_CBOR_KEY;
+        return index >= 0 && index < CBOR_KEY_TO_VALUE.length ? CBOR_KEY_TO_VALUE[index] : null;
+    }
+
+    static Label fromCborKey(final String cborKey) {
+        switch (cborKey.length()) {
+            case 1:
+                return isDigit(cborKey.charAt(0)) ? fromCborKey(cborKey.charAt(0) - '0') : null;
+            case 2:
+                return cborKey.charAt(0) == '-' && isDigit(cborKey.charAt(1)) ? fromCborKey('0' - cborKey.charAt(1)) : null;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
     public final static <S extends Formatter>  Map<String, Label> getNameToValueMap(final Class<S> type) {
-        return new HashMap<String, Label>() {{
-            put(BASE_NAME.getFormattedLabel(type), BASE_NAME);
-            put(BASE_TIME.getFormattedLabel(type), BASE_TIME);
-            put(BASE_UNIT.getFormattedLabel(type), BASE_UNIT);
-            put(BASE_VALUE.getFormattedLabel(type), BASE_VALUE);
-            put(BASE_SUM.getFormattedLabel(type), BASE_SUM);
-            put(BASE_VERSION.getFormattedLabel(type), BASE_NAME);
-            put(NAME.getFormattedLabel(type), NAME);
-            put(UNIT.getFormattedLabel(type), UNIT);
-            put(VALUE.getFormattedLabel(type), VALUE);
-            put(STRING_VALUE.getFormattedLabel(type), STRING_VALUE);
-            put(BOOLEAN_VALUE.getFormattedLabel(type), BOOLEAN_VALUE);
-            put(DATA_VALUE.getFormattedLabel(type), DATA_VALUE);
-            put(SUM.getFormattedLabel(type), SUM);
-            put(TIME.getFormattedLabel(type), TIME);
-            put(UPDATE_TIME.getFormattedLabel(type), UPDATE_TIME);
-        }};
+        return LabelRegistry.of(type).getNameToValueMap();
     }
 
     public class Pair {
 
         private T value;
+        private byte[] data;
 
-        private Pair(final T value) {
+        private Pair(final T value, final byte[] data) {
             this.value = value;
+            this.data = data;
         }
 
         public Label<T> getLabel() {
             return Label.this;
         }
 
+        /**
+         * Returns the value. For attached data this is its base64url text, encoded on the first call.
+         */
         public T getValue() {
+            if (value == null && data != null) {
+                value = type.cast(DataValues.encode(data));
+            }
+
             return value;
         }
 
+        /**
+         * Returns the data attached with {@link #attachData(byte[])}, or {@code null} for other pairs.
+         */
+        public byte[] getData() {
+            return data;
+        }
+
     }
 
 }
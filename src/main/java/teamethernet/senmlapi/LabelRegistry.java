@@ -0,0 +1,95 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, precomputed label lookup for one formatter: formatted labels are indexed by
+ * {@link Label#getIndex()} and decoding goes through a shared map (JSON) or the dense key table (CBOR).
+ */
+final class LabelRegistry {
+
+    static final LabelRegistry JSON = new LabelRegistry(JsonFormatter.class);
+    static final LabelRegistry CBOR = new LabelRegistry(CborFormatter.class);
+
+    private final boolean cbor;
+    private final String[] formattedLabels;
+    private final Map<String, Label> nameToValueMap;
+
+    private <S extends Formatter> LabelRegistry(final Class<S> type) {
+        final List<Label> labels = Label.values();
+        final Map<String, Label> map = new HashMap<>();
+
+        this.cbor = type == CborFormatter.class;
+        this.formattedLabels = new String[labels.size()];
+
+        for (final Label label : labels) {
+            formattedLabels[label.getIndex()] = label.getFormattedLabel(type);
+            map.put(formattedLabels[label.getIndex()], label);
+        }
+
+        this.nameToValueMap = Collections.unmodifiableMap(map);
+    }
+
+    static <S extends Formatter> LabelRegistry of(final Class<S> type) {
+        if (type.isAssignableFrom(JsonFormatter.class)) {
+            return JSON;
+        } else if (type.isAssignableFrom(CborFormatter.class)) {
+            return CBOR;
+        } else {
+            throw new UnsupportedOperationException("This formatter is not supported yet");
+        }
+    }
+
+    String getFormattedLabel(final Label<?> label) {
+        return formattedLabels[label.getIndex()];
+    }
+
+    Label getLabel(final String formattedLabel) {
+        return cbor ? Label.fromCborKey(formattedLabel) : nameToValueMap.get(formattedLabel);
+    }
+
+    Map<String, Label> getNameToValueMap() {
+        return nameToValueMap;
+    }
+
+}
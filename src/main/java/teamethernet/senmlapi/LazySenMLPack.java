@@ -0,0 +1,135 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only view of an encoded pack that only scans the record boundaries when it is created and
+ * decodes a record the first time it is accessed. Decoded records are kept in an optional
+ * least-recently-used cache of bounded size. Instances are not thread-safe.
+ */
+public class LazySenMLPack<T extends Formatter> {
+
+    private final T formatter;
+    private final byte[] data;
+    private final RecordIndex index;
+    private final Map<Integer, JsonNode> cache;
+
+    private LazySenMLPack(final T formatter, final byte[] data, final int offset, final int length,
+                          final int cacheSize) throws IOException {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + cacheSize);
+        }
+
+        this.formatter = formatter;
+        this.data = data;
+        this.index = RecordIndex.scan(formatter.getClass(), data, offset, length);
+        this.cache = new LinkedHashMap<Integer, JsonNode>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Integer, JsonNode> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public static LazySenMLPack<JsonFormatter> initJson(final byte[] buffer) throws IOException {
+        return initJson(buffer, 0);
+    }
+
+    public static LazySenMLPack<JsonFormatter> initJson(final byte[] buffer, final int cacheSize) throws IOException {
+        return new LazySenMLPack<>(new JsonFormatter(), buffer, 0, buffer.length, cacheSize);
+    }
+
+    public static LazySenMLPack<CborFormatter> initCbor(final byte[] buffer) throws IOException {
+        return initCbor(buffer, 0);
+    }
+
+    public static LazySenMLPack<CborFormatter> initCbor(final byte[] buffer, final int cacheSize) throws IOException {
+        return new LazySenMLPack<>(new CborFormatter(), buffer, 0, buffer.length, cacheSize);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns the encoded bytes of the record exactly as they appear in the pack.
+     */
+    public byte[] getRecord(final int recordIndex) {
+        checkIndex(recordIndex);
+        return Arrays.copyOfRange(data, index.start(recordIndex), index.end(recordIndex));
+    }
+
+    public List<Label> getLabels(final int recordIndex) throws IOException {
+        return SenMLAPI.getLabels(decode(recordIndex), formatter.getLabelRegistry());
+    }
+
+    public <S> S getValue(final Label<S> label, final int recordIndex) throws IOException {
+        return SenMLAPI.getValue(formatter, label, decode(recordIndex));
+    }
+
+    public SenMLRecord getSenMLRecord(final int recordIndex) throws IOException {
+        return SenMLAPI.getSenMLRecord(formatter, decode(recordIndex));
+    }
+
+    private JsonNode decode(final int recordIndex) throws IOException {
+        checkIndex(recordIndex);
+        JsonNode record = cache.get(recordIndex);
+
+        if (record == null) {
+            record = formatter.getMapper().readValue(data, index.start(recordIndex), index.length(recordIndex), JsonNode.class);
+            cache.put(recordIndex, record);
+        }
+
+        return record;
+    }
+
+    private void checkIndex(final int recordIndex) {
+        if (recordIndex < 0 || recordIndex >= index.size()) {
+            throw new IndexOutOfBoundsException("Index: " + recordIndex + ", Size: " + index.size());
+        }
+    }
+
+}
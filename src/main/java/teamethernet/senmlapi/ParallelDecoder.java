@@ -0,0 +1,121 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Decodes the records of a pack on a {@link ForkJoinPool}. The record boundaries are found with a
+ * structural scan first, then the records are split into byte ranges that are parsed independently
+ * and put back together in record order.
+ */
+final class ParallelDecoder {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private ParallelDecoder() {
+    }
+
+    static ArrayNode decode(final ObjectMapper mapper, final Class<? extends Formatter> type,
+                            final byte[] data, final ForkJoinPool pool) throws IOException {
+        final RecordIndex index = RecordIndex.scan(type, data, 0, data.length);
+        final JsonNode[] records = new JsonNode[index.size()];
+
+        try {
+            pool.invoke(new DecodeTask(mapper, data, index, records, 0, index.size()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        final ArrayNode array = mapper.createArrayNode();
+        for (final JsonNode record : records) {
+            array.add(record);
+        }
+
+        return array;
+    }
+
+    private static final class DecodeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ObjectMapper mapper;
+        private final byte[] data;
+        private final RecordIndex index;
+        private final JsonNode[] records;
+        private final int from;
+        private final int to;
+
+        private DecodeTask(final ObjectMapper mapper, final byte[] data, final RecordIndex index,
+                           final JsonNode[] records, final int from, final int to) {
+            this.mapper = mapper;
+            this.data = data;
+            this.index = index;
+            this.records = records;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && index.end(to - 1) - index.start(from) > CHUNK_SIZE) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new DecodeTask(mapper, data, index, records, from, middle),
+                        new DecodeTask(mapper, data, index, records, middle, to));
+                return;
+            }
+
+            try {
+                for (int i = from; i < to; i++) {
+                    records[i] = mapper.readValue(data, index.start(i), index.length(i), JsonNode.class);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,450 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Byte ranges of the records of an encoded pack, found by a structural scan that only looks at the
+ * framing of the top-level array and never decodes any values.
+ */
+final class RecordIndex {
+
+    private int[] starts;
+    private int[] ends;
+    private int size;
+
+    private RecordIndex(final int capacity) {
+        starts = new int[capacity];
+        ends = new int[capacity];
+    }
+
+    static RecordIndex scan(final Class<? extends Formatter> type, final byte[] data, final int offset, final int length) throws IOException {
+        return type == CborFormatter.class ? scanCbor(data, offset, length) : scanJson(data, offset, length);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return starts.length;
+    }
+
+    int start(final int recordIndex) {
+        return starts[recordIndex];
+    }
+
+    int end(final int recordIndex) {
+        return ends[recordIndex];
+    }
+
+    int length(final int recordIndex) {
+        return ends[recordIndex] - starts[recordIndex];
+    }
+
+    private void add(final int start, final int end) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, Math.max(16, size * 2));
+            ends = Arrays.copyOf(ends, starts.length);
+        }
+
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    static RecordIndex scanJson(final byte[] data, final int offset, final int length) throws IOException {
+        final int limit = offset + length;
+        final RecordIndex index = new RecordIndex(16);
+        int position = skipWhitespace(data, offset, limit);
+
+        if (position == limit || data[position] != '[') {
+            throw new IOException("A SenML pack must start with an array");
+        }
+
+        position = skipWhitespace(data, position + 1, limit);
+
+        if (position < limit && data[position] == ']') {
+            return index;
+        }
+
+        while (true) {
+            if (position == limit || data[position] != '{') {
+                throw new IOException("Expected a SenML record at offset " + position);
+            }
+
+            final int end = skipJsonObject(data, position, limit);
+            index.add(position, end);
+            position = skipWhitespace(data, end, limit);
+
+            if (position == limit) {
+                throw new IOException("Unexpected end of SenML pack");
+            } else if (data[position] == ']') {
+                return index;
+            } else if (data[position] != ',') {
+                throw new IOException("Expected ',' or ']' at offset " + position);
+            }
+
+            position = skipWhitespace(data, position + 1, limit);
+        }
+    }
+
+    private static int skipJsonObject(final byte[] data, final int start, final int limit) throws IOException {
+        int depth = 0;
+        int position = start;
+
+        while (position < limit) {
+            final byte b = data[position++];
+
+            if (b == '"') {
+                position = skipJsonString(data, position, limit);
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                if (--depth == 0) {
+                    return position;
+                }
+            }
+        }
+
+        throw new IOException("Unexpected end of SenML record starting at offset " + start);
+    }
+
+    private static int skipJsonString(final byte[] data, int position, final int limit) throws IOException {
+        while (position < limit) {
+            final byte b = data[position++];
+
+            if (b == '\\') {
+                position++;
+            } else if (b == '"') {
+                return position;
+            }
+        }
+
+        throw new IOException("Unexpected end of string");
+    }
+
+    private static int skipWhitespace(final byte[] data, int position, final int limit) {
+        while (position < limit && (data[position] == ' ' || data[position] == '\t'
+                || data[position] == '\n' || data[position] == '\r')) {
+            position++;
+        }
+
+        return position;
+    }
+
+    static RecordIndex scanCbor(final byte[] data, final int offset, final int length) throws IOException {
+        final CborScanner scanner = new CborScanner(data, offset, offset + length);
+        final int initialByte = scanner.next();
+
+        if (initialByte >> 5 != 4) {
+            throw new IOException("A SenML pack must start with an array");
+        }
+
+        final boolean indefinite = (initialByte & 0x1F) == 31;
+        final long count = indefinite ? Long.MAX_VALUE : scanner.argument(initialByte);
+
+        if (!indefinite && (count < 0 || count > scanner.limit - scanner.position)) {
+            throw new IOException("SenML pack of " + length + " bytes cannot hold "
+                    + Long.toUnsignedString(count) + " records");
+        }
+
+        final RecordIndex index = new RecordIndex(indefinite ? 16 : (int) count);
+
+        for (long i = 0; i < count; i++) {
+            if (indefinite && scanner.peek() == 0xFF) {
+                scanner.next();
+                break;
+            }
+
+            final int start = scanner.position;
+            if (scanner.peek() >> 5 != 5) {
+                throw new IOException("Expected a SenML record at offset " + start);
+            }
+            scanner.skipItem();
+            index.add(start, scanner.position);
+        }
+
+        if (scanner.position != scanner.limit) {
+            throw new IOException("Unexpected data after the SenML pack at offset " + scanner.position);
+        }
+
+        return index;
+    }
+
+    /**
+     * Finds the end of a CBOR data item that arrives in pieces. The scan stops at the first data item
+     * header that has not arrived completely and resumes from there on the next call, so every byte of
+     * the item is scanned once no matter how many pieces it arrives in. The item may move within the
+     * buffer between calls as long as it keeps its start.
+     */
+    static final class PartialCborItem {
+
+        private static final long INDEFINITE = -1;
+
+        private int scanned;
+        private long[] pending = new long[8];
+        private int depth;
+
+        /**
+         * Returns the end of the data item that starts at {@code start}, or -1 when it does not end before
+         * {@code limit} yet. Once the end has been returned the next call starts a new item.
+         */
+        int end(final byte[] data, final int start, final int limit) throws IOException {
+            if (depth == 0) {
+                pending[depth++] = 1;
+            }
+
+            while (depth > 0) {
+                final int position = start + scanned;
+                if (position >= limit) {
+                    return -1;
+                }
+
+                final int initialByte = data[position] & 0xFF;
+                if (initialByte == 0xFF) {
+                    if (pending[depth - 1] != INDEFINITE) {
+                        throw new IOException("Unexpected CBOR break at offset " + position);
+                    }
+                    scanned++;
+                    depth--;
+                    itemDone();
+                    continue;
+                }
+
+                final int major = initialByte >> 5;
+                final int info = initialByte & 0x1F;
+                final int argumentBytes;
+                if (info < 24 || info == 31) {
+                    argumentBytes = 0;
+                } else if (info <= 27) {
+                    argumentBytes = 1 << (info - 24);
+                } else {
+                    throw new IOException("Invalid CBOR additional information " + info + " at offset " + position);
+                }
+
+                if (limit - position < 1 + argumentBytes) {
+                    return -1;
+                }
+
+                long argument = argumentBytes == 0 ? info : 0;
+                for (int i = 1; i <= argumentBytes; i++) {
+                    argument = (argument << 8) | (data[position + i] & 0xFF);
+                }
+                final int header = 1 + argumentBytes;
+
+                if (info == 31 && major != 2 && major != 3 && major != 4 && major != 5) {
+                    throw new IOException("Invalid CBOR additional information " + info + " at offset " + position);
+                } else if (info == 31) {
+                    scanned += header;
+                    push(INDEFINITE);
+                } else if (major == 2 || major == 3) {
+                    if (argument < 0) {
+                        throw new IOException("Invalid CBOR length at offset " + position);
+                    } else if (argument > limit - position - header) {
+                        return -1;
+                    }
+                    scanned += header + (int) argument;
+                    itemDone();
+                } else if (major == 4 || major == 5) {
+                    if (argument < 0 || argument > Long.MAX_VALUE / 2) {
+                        throw new IOException("Invalid CBOR length at offset " + position);
+                    }
+                    scanned += header;
+                    if (argument == 0) {
+                        itemDone();
+                    } else {
+                        push(argument * (major == 5 ? 2 : 1));
+                    }
+                } else if (major == 6) {
+                    scanned += header;
+                } else {
+                    scanned += header;
+                    itemDone();
+                }
+            }
+
+            final int end = start + scanned;
+            scanned = 0;
+            return end;
+        }
+
+        private void push(final long items) {
+            if (depth == pending.length) {
+                pending = Arrays.copyOf(pending, depth * 2);
+            }
+            pending[depth++] = items;
+        }
+
+        /**
+         * Counts a completed item against the enclosing containers, closing those that are now full.
+         */
+        private void itemDone() {
+            while (depth > 0 && pending[depth - 1] != INDEFINITE && --pending[depth - 1] == 0) {
+                depth--;
+            }
+        }
+
+    }
+
+    private static final class CborScanner {
+
+        private final byte[] data;
+        private final int limit;
+        private int position;
+
+        private CborScanner(final byte[] data, final int position, final int limit) {
+            this.data = data;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        private int peek() throws IOException {
+            if (position >= limit) {
+                throw new IOException("Unexpected end of CBOR data");
+            }
+
+            return data[position] & 0xFF;
+        }
+
+        private int next() throws IOException {
+            final int b = peek();
+            position++;
+            return b;
+        }
+
+        private long argument(final int initialByte) throws IOException {
+            final int info = initialByte & 0x1F;
+
+            if (info < 24) {
+                return info;
+            }
+
+            final int bytes;
+            switch (info) {
+                case 24:
+                    bytes = 1;
+                    break;
+                case 25:
+                    bytes = 2;
+                    break;
+                case 26:
+                    bytes = 4;
+                    break;
+                case 27:
+                    bytes = 8;
+                    break;
+                default:
+                    throw new IOException("Invalid CBOR additional information " + info + " at offset " + (position - 1));
+            }
+
+            long value = 0;
+            for (int i = 0; i < bytes; i++) {
+                value = (value << 8) | next();
+            }
+
+            return value;
+        }
+
+        private void skip(final long count) throws IOException {
+            if (count < 0) {
+                throw new IOException("Invalid CBOR length at offset " + position);
+            } else if (count > limit - position) {
+                throw new IOException("Unexpected end of CBOR data");
+            }
+
+            position += (int) count;
+        }
+
+        private void skipItem() throws IOException {
+            final int initialByte = next();
+            final int major = initialByte >> 5;
+            final boolean indefinite = (initialByte & 0x1F) == 31;
+
+            switch (major) {
+                case 0:
+                case 1:
+                    argument(initialByte);
+                    break;
+                case 2:
+                case 3:
+                    if (indefinite) {
+                        while (peek() != 0xFF) {
+                            skipItem();
+                        }
+                        next();
+                    } else {
+                        skip(argument(initialByte));
+                    }
+                    break;
+                case 4:
+                case 5:
+                    if (indefinite) {
+                        while (peek() != 0xFF) {
+                            skipItem();
+                        }
+                        next();
+                    } else {
+                        final long length = argument(initialByte);
+                        if (length < 0 || length > Long.MAX_VALUE / 2) {
+                            throw new IOException("Invalid CBOR length at offset " + position);
+                        }
+                        final long items = length * (major == 5 ? 2 : 1);
+                        for (long i = 0; i < items; i++) {
+                            skipItem();
+                        }
+                    }
+                    break;
+                case 6:
+                    argument(initialByte);
+                    skipItem();
+                    break;
+                default:
+                    if (indefinite) {
+                        throw new IOException("Unexpected CBOR break at offset " + (position - 1));
+                    }
+                    argument(initialByte);
+                    break;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A record with all base fields applied as described in RFC 8428 section 4.6:
+ * a full name, an absolute time and values with any base value or base sum added.
+ */
+public final class ResolvedRecord {
+
+    private final String name;
+    private final String unit;
+    private final double time;
+    private final boolean hasValue;
+    private final double value;
+    private final String stringValue;
+    private final Boolean booleanValue;
+    private final String dataValue;
+    private final byte[] data;
+    private final boolean hasSum;
+    private final double sum;
+    private final boolean hasUpdateTime;
+    private final double updateTime;
+
+    ResolvedRecord(final String name, final String unit, final double time,
+                   final boolean hasValue, final double value, final String stringValue,
+                   final Boolean booleanValue, final String dataValue, final byte[] data,
+                   final boolean hasSum, final double sum,
+                   final boolean hasUpdateTime, final double updateTime) {
+        this.name = name;
+        this.unit = unit;
+        this.time = time;
+        this.hasValue = hasValue;
+        this.value = value;
+        this.stringValue = stringValue;
+        this.booleanValue = booleanValue;
+        this.dataValue = dataValue;
+        this.data = data;
+        this.hasSum = hasSum;
+        this.sum = sum;
+        this.hasUpdateTime = hasUpdateTime;
+        this.updateTime = updateTime;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    public boolean hasValue() {
+        return hasValue;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public String getStringValue() {
+        return stringValue;
+    }
+
+    public Boolean getBooleanValue() {
+        return booleanValue;
+    }
+
+    public String getDataValue() {
+        return data != null ? DataValues.encode(data) : dataValue;
+    }
+
+    /**
+     * Returns the data value as bytes, or {@code null} if the record has none. CBOR byte strings are
+     * returned as they are and text is decoded from base64url.
+     */
+    public byte[] getData() {
+        return data != null ? data : dataValue == null ? null : DataValues.decode(dataValue);
+    }
+
+    /**
+     * Returns the data value as it was decoded, a byte string or text, or {@code null} if there is none.
+     */
+    Label<String>.Pair getDataPair() {
+        if (data != null) {
+            return Label.DATA_VALUE.attachData(data);
+        }
+
+        return dataValue == null ? null : Label.DATA_VALUE.attachValue(dataValue);
+    }
+
+    public boolean hasSum() {
+        return hasSum;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public boolean hasUpdateTime() {
+        return hasUpdateTime;
+    }
+
+    public double getUpdateTime() {
+        return updateTime;
+    }
+
+    public SenMLRecord toSenMLRecord() {
+        final List<Label.Pair> pairs = new ArrayList<>();
+
+        pairs.add(Label.NAME.attachValue(name));
+        if (unit != null) {
+            pairs.add(Label.UNIT.attachValue(unit));
+        }
+        if (hasValue) {
+            pairs.add(Label.VALUE.attachValue(value));
+        }
+        if (stringValue != null) {
+            pairs.add(Label.STRING_VALUE.attachValue(stringValue));
+        }
+        if (booleanValue != null) {
+            pairs.add(Label.BOOLEAN_VALUE.attachValue(booleanValue));
+        }
+        final Label.Pair dataPair = getDataPair();
+        if (dataPair != null) {
+            pairs.add(dataPair);
+        }
+        if (hasSum) {
+            pairs.add(Label.SUM.attachValue(sum));
+        }
+        pairs.add(Label.TIME.attachValue(time));
+        if (hasUpdateTime) {
+            pairs.add(Label.UPDATE_TIME.attachValue(updateTime));
+        }
+
+        return new SenMLRecord(pairs);
+    }
+
+    @Override
+    public String toString() {
+        return toSenMLRecord().toString();
+    }
+
+}
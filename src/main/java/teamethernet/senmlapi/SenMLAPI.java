@@ -37,27 +37,44 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package teamethernet.senmlapi;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BinaryNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class SenMLAPI<T extends Formatter> {
 
-    private static final String STRING_INSTANCE = "";
-    private static final Double DOUBLE_INSTANCE = 0.0;
-    private static final Integer INTEGER_INSTANCE = 0;
-    private static final Boolean BOOLEAN_INSTANCE = false;
-
     private final T formatter;
+    private byte[] rawData;
+    private RecordIndex rawRecords;
+    private ByteArrayBuilder output;
 
     private SenMLAPI(final T formatter) {
+        this(formatter, null, null);
+    }
+
+    private SenMLAPI(final T formatter, final byte[] rawData, final RecordIndex rawRecords) {
         this.formatter = formatter;
+        this.rawData = rawData;
+        this.rawRecords = rawRecords;
     }
 
     public static SenMLAPI<JsonFormatter> initJson() {
@@ -65,7 +82,57 @@ public class SenMLAPI<T extends Formatter> {
     }
 
     public static SenMLAPI<JsonFormatter> initJson(final byte[] buffer) throws IOException {
-        return new SenMLAPI<>(new JsonFormatter(buffer));
+        return decode(SenMLMetrics.Format.JSON, buffer.length, () -> new SenMLAPI<>(new JsonFormatter(buffer)));
+    }
+
+    public static SenMLAPI<JsonFormatter> initJson(final byte[] buffer, final int offset, final int length) throws IOException {
+        return decode(SenMLMetrics.Format.JSON, length,
+                () -> new SenMLAPI<>(new JsonFormatter(JsonFormatter.MAPPER.readTree(buffer, offset, length))));
+    }
+
+    public static SenMLAPI<JsonFormatter> initJson(final ByteBuffer buffer) throws IOException {
+        return decode(SenMLMetrics.Format.JSON, buffer.remaining(),
+                () -> new SenMLAPI<>(new JsonFormatter(readTree(JsonFormatter.MAPPER, buffer))));
+    }
+
+    public static SenMLAPI<JsonFormatter> initJson(final Path path) throws IOException {
+        return initJson(map(path));
+    }
+
+    public static SenMLAPI<JsonFormatter> initJson(final byte[] buffer, final ForkJoinPool pool) throws IOException {
+        return decode(SenMLMetrics.Format.JSON, buffer.length,
+                () -> new SenMLAPI<>(new JsonFormatter(ParallelDecoder.decode(JsonFormatter.MAPPER, JsonFormatter.class, buffer, pool))));
+    }
+
+    /**
+     * Same as {@link #initJson(byte[])}, but remembers where each record starts and ends in the buffer so
+     * {@link #getRecord(int)} and {@link #getRecordBuffer(int)} return the original bytes instead of
+     * encoding the record again. The buffer must not be modified while the returned instance is in use.
+     */
+    public static SenMLAPI<JsonFormatter> initJsonWithRawRecords(final byte[] buffer) throws IOException {
+        return decode(SenMLMetrics.Format.JSON, buffer.length, () -> {
+            final RecordIndex index = RecordIndex.scanJson(buffer, 0, buffer.length);
+            return new SenMLAPI<>(new JsonFormatter(decode(JsonFormatter.MAPPER, buffer, index)), buffer, index);
+        });
+    }
+
+    /**
+     * Same as {@link #initJson(byte[])}, but the strings of the pack are shared through {@code interner}
+     * with every other pack decoded with it, so long-lived packs do not hold copies of repeated names
+     * and units.
+     */
+    public static SenMLAPI<JsonFormatter> initJson(final byte[] buffer, final SenMLInterner interner) throws IOException {
+        return decode(SenMLMetrics.Format.JSON, buffer.length,
+                () -> new SenMLAPI<>(new JsonFormatter(readTree(JsonFormatter.MAPPER, buffer, interner))));
+    }
+
+    /**
+     * Same as {@link #initJson(byte[])}, but the pack is first checked by {@link SenMLValidator} so that
+     * a pack breaking RFC 8428 is rejected before a tree is built for it.
+     */
+    public static SenMLAPI<JsonFormatter> initJsonValidated(final byte[] buffer) throws IOException {
+        SenMLValidator.validateJson(buffer);
+        return initJson(buffer);
     }
 
     public static SenMLAPI<CborFormatter> initCbor() {
@@ -73,7 +140,115 @@ public class SenMLAPI<T extends Formatter> {
     }
 
     public static SenMLAPI<CborFormatter> initCbor(final byte[] buffer) throws IOException {
-        return new SenMLAPI<>(new CborFormatter(buffer));
+        return decode(SenMLMetrics.Format.CBOR, buffer.length, () -> new SenMLAPI<>(new CborFormatter(buffer)));
+    }
+
+    public static SenMLAPI<CborFormatter> initCbor(final byte[] buffer, final int offset, final int length) throws IOException {
+        return decode(SenMLMetrics.Format.CBOR, length,
+                () -> new SenMLAPI<>(new CborFormatter(CborFormatter.MAPPER.readValue(buffer, offset, length, JsonNode.class))));
+    }
+
+    public static SenMLAPI<CborFormatter> initCbor(final ByteBuffer buffer) throws IOException {
+        return decode(SenMLMetrics.Format.CBOR, buffer.remaining(),
+                () -> new SenMLAPI<>(new CborFormatter(readTree(CborFormatter.MAPPER, buffer))));
+    }
+
+    public static SenMLAPI<CborFormatter> initCbor(final Path path) throws IOException {
+        return initCbor(map(path));
+    }
+
+    public static SenMLAPI<CborFormatter> initCbor(final byte[] buffer, final ForkJoinPool pool) throws IOException {
+        return decode(SenMLMetrics.Format.CBOR, buffer.length,
+                () -> new SenMLAPI<>(new CborFormatter(ParallelDecoder.decode(CborFormatter.MAPPER, CborFormatter.class, buffer, pool))));
+    }
+
+    /**
+     * Same as {@link #initCbor(byte[])}, but remembers where each record starts and ends in the buffer so
+     * {@link #getRecord(int)} and {@link #getRecordBuffer(int)} return the original bytes instead of
+     * encoding the record again. The buffer must not be modified while the returned instance is in use.
+     */
+    public static SenMLAPI<CborFormatter> initCborWithRawRecords(final byte[] buffer) throws IOException {
+        return decode(SenMLMetrics.Format.CBOR, buffer.length, () -> {
+            final RecordIndex index = RecordIndex.scanCbor(buffer, 0, buffer.length);
+            return new SenMLAPI<>(new CborFormatter(decode(CborFormatter.MAPPER, buffer, index)), buffer, index);
+        });
+    }
+
+    /**
+     * Same as {@link #initCbor(byte[])}, but the strings of the pack are shared through {@code interner}
+     * with every other pack decoded with it, so long-lived packs do not hold copies of repeated names
+     * and units.
+     */
+    public static SenMLAPI<CborFormatter> initCbor(final byte[] buffer, final SenMLInterner interner) throws IOException {
+        return decode(SenMLMetrics.Format.CBOR, buffer.length,
+                () -> new SenMLAPI<>(new CborFormatter(readTree(CborFormatter.MAPPER, buffer, interner))));
+    }
+
+    /**
+     * Same as {@link #initCbor(byte[])}, but the pack is first checked by {@link SenMLValidator} so that
+     * a pack breaking RFC 8428 is rejected before a tree is built for it.
+     */
+    public static SenMLAPI<CborFormatter> initCborValidated(final byte[] buffer) throws IOException {
+        SenMLValidator.validateCbor(buffer);
+        return initCbor(buffer);
+    }
+
+    public static SenMLAPI<CborFormatter> initCborWithIntegerKeys() {
+        return new SenMLAPI<>(new CborFormatter(true));
+    }
+
+    public static SenMLAPI<CborFormatter> initCborWithIntegerKeys(final byte[] buffer) throws IOException {
+        return decode(SenMLMetrics.Format.CBOR, buffer.length, () -> new SenMLAPI<>(new CborFormatter(buffer, true)));
+    }
+
+    /**
+     * Sets the metrics listener that all packs report to, or turns metrics off again when given
+     * {@code null} or {@link SenMLMetrics#NONE}.
+     */
+    public static void setMetrics(final SenMLMetrics metrics) {
+        Metrics.set(metrics);
+    }
+
+    @FunctionalInterface
+    private interface Decoder<F extends Formatter> {
+        SenMLAPI<F> decode() throws IOException;
+    }
+
+    private static <F extends Formatter> SenMLAPI<F> decode(final SenMLMetrics.Format format, final long bytes,
+                                                            final Decoder<F> decoder) throws IOException {
+        final SenMLMetrics metrics = Metrics.get();
+
+        if (metrics == SenMLMetrics.NONE) {
+            return decoder.decode();
+        }
+
+        final long start = System.nanoTime();
+        final SenMLAPI<F> senMLAPI;
+
+        try {
+            senMLAPI = decoder.decode();
+        } catch (IOException e) {
+            metrics.decodeFailed(format, e);
+            throw e;
+        }
+
+        final long nanos = System.nanoTime() - start;
+        final LabelRegistry registry = senMLAPI.formatter.getLabelRegistry();
+
+        for (final JsonNode record : senMLAPI.formatter.getRecords()) {
+            record.fieldNames().forEachRemaining(fieldName -> {
+                if (registry.getLabel(fieldName) == null) {
+                    metrics.unknownLabel(format, fieldName);
+                }
+            });
+        }
+
+        metrics.packDecoded(format, bytes, senMLAPI.size(), nanos);
+        return senMLAPI;
+    }
+
+    public int size() {
+        return formatter.getRecords().size();
     }
 
     public List<byte[]> getRecords() throws IOException {
@@ -87,67 +262,389 @@ public class SenMLAPI<T extends Formatter> {
     }
 
     public byte[] getRecord(final int recordIndex) throws IOException {
+        if (hasRawRecord(recordIndex)) {
+            return Arrays.copyOfRange(rawData, rawRecords.start(recordIndex), rawRecords.end(recordIndex));
+        }
+
         return formatter.getSenML(formatter.getRecords().get(recordIndex));
     }
 
+    /**
+     * Returns a read-only view of the encoded record. For packs created with
+     * {@link #initJsonWithRawRecords(byte[])} or {@link #initCborWithRawRecords(byte[])} the view shares
+     * the input buffer, other records are encoded into a new buffer.
+     */
+    public ByteBuffer getRecordBuffer(final int recordIndex) throws IOException {
+        if (hasRawRecord(recordIndex)) {
+            return ByteBuffer.wrap(rawData, rawRecords.start(recordIndex), rawRecords.length(recordIndex))
+                    .slice()
+                    .asReadOnlyBuffer();
+        }
+
+        return ByteBuffer.wrap(getRecord(recordIndex)).asReadOnlyBuffer();
+    }
+
+    public List<ByteBuffer> getRecordBuffers() throws IOException {
+        final List<ByteBuffer> records = new ArrayList<>(size());
+
+        for (int i = 0; i < size(); i++) {
+            records.add(getRecordBuffer(i));
+        }
+
+        return records;
+    }
+
+    private boolean hasRawRecord(final int recordIndex) {
+        return rawRecords != null && recordIndex < rawRecords.size();
+    }
+
     public List<Label> getLabels(final int recordIndex) {
-        final JsonNode record = formatter.getRecords().get(recordIndex);
-        final List<Label> labels = new ArrayList<>();
+        return getLabels(formatter.getRecords().get(recordIndex), formatter.getLabelRegistry());
+    }
 
-        record.fields().forEachRemaining(field ->
-                labels.add(Label.getNameToValueMap(formatter.getClass()).get(field.getKey())));
+    public List<List<Label>> getLabels() {
+        final LabelRegistry registry = formatter.getLabelRegistry();
+        final List<List<Label>> labels = new ArrayList<>(size());
+
+        for (final JsonNode record : formatter.getRecords()) {
+            labels.add(getLabels(record, registry));
+        }
 
         return labels;
     }
 
+    static List<Label> getLabels(final JsonNode record, final LabelRegistry registry) {
+        final List<Label> labels = new ArrayList<>(record.size());
+        final Iterator<String> fieldNames = record.fieldNames();
+
+        while (fieldNames.hasNext()) {
+            labels.add(registry.getLabel(fieldNames.next()));
+        }
+
+        return labels;
+    }
+
+    public SenMLRecord getSenMLRecord(final int recordIndex) {
+        return getSenMLRecord(formatter, formatter.getRecords().get(recordIndex));
+    }
+
     @SuppressWarnings("unchecked")
+    static SenMLRecord getSenMLRecord(final Formatter formatter, final JsonNode record) {
+        final LabelRegistry registry = formatter.getLabelRegistry();
+        final List<Label.Pair> pairs = new ArrayList<>();
+
+        record.fieldNames().forEachRemaining(fieldName -> {
+            final Label label = registry.getLabel(fieldName);
+
+            if (label == Label.DATA_VALUE && record.get(fieldName).isBinary()) {
+                pairs.add(Label.DATA_VALUE.attachData(((BinaryNode) record.get(fieldName)).binaryValue()));
+            } else if (label != null) {
+                pairs.add(label.attachValue(getValue(formatter, label, record)));
+            }
+        });
+
+        return new SenMLRecord(pairs);
+    }
+
+    public List<ResolvedRecord> getResolvedRecords() {
+        final SenMLResolver resolver = new SenMLResolver();
+        final List<ResolvedRecord> resolvedRecords = new ArrayList<>();
+
+        for (int i = 0; i < formatter.getRecords().size(); i++) {
+            resolvedRecords.add(resolver.resolve(getSenMLRecord(i)));
+        }
+
+        return resolvedRecords;
+    }
+
+    /**
+     * Replaces the records with the smaller but equivalent records of {@link SenMLCompactor#compact(List)}.
+     */
+    public void compact() {
+        final List<SenMLRecord> records = new ArrayList<>(size());
+
+        for (int i = 0; i < size(); i++) {
+            records.add(getSenMLRecord(i));
+        }
+
+        reset();
+
+        for (final SenMLRecord record : SenMLCompactor.compact(records)) {
+            addRecord(record.getPairs().toArray(new Label.Pair[0]));
+        }
+    }
+
     public <S> S getValue(Label<S> label, int recordIndex) {
+        return getValue(formatter, label, formatter.getRecords().get(recordIndex));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <S> S getValue(final Formatter formatter, final Label<S> label, final JsonNode record) {
         final Class<S> type = label.getClassType();
-        final JsonNode record = formatter.getRecords().get(recordIndex);
-
-        if (type.isInstance(STRING_INSTANCE)) {
-            return type.cast(formatter.getStringValue((Label<String>) label, record));
-        } else if (type.isInstance(DOUBLE_INSTANCE)) {
-            return type.cast(formatter.getDoubleValue((Label<Double>) label, record));
-        } else if (type.isInstance(INTEGER_INSTANCE)) {
-            return type.cast(formatter.getIntegerValue((Label<Integer>) label, record));
-        } else if (type.isInstance(BOOLEAN_INSTANCE)) {
-            return type.cast(formatter.getBooleanValue((Label<Boolean>) label, record));
-        } else {
-            throw new UnsupportedOperationException(
-                    type + " is not supported. Use String, Double, Integer or Boolean");
+
+        switch (label.getValueType()) {
+            case STRING:
+                return type.cast(formatter.getStringValue((Label<String>) label, record));
+            case DOUBLE:
+                return type.cast(formatter.getDoubleValue((Label<Double>) label, record));
+            case INTEGER:
+                return type.cast(formatter.getIntegerValue((Label<Integer>) label, record));
+            case BOOLEAN:
+                return type.cast(formatter.getBooleanValue((Label<Boolean>) label, record));
+            default:
+                throw new UnsupportedOperationException(
+                        type + " is not supported. Use String, Double, Integer or Boolean");
         }
     }
 
+    public double getDouble(final Label<Double> label, final int recordIndex) {
+        return formatter.getDouble(label, formatter.getRecords().get(recordIndex));
+    }
+
+    public int getInt(final Label<Integer> label, final int recordIndex) {
+        return formatter.getInt(label, formatter.getRecords().get(recordIndex));
+    }
+
+    public boolean getBoolean(final Label<Boolean> label, final int recordIndex) {
+        return formatter.getBoolean(label, formatter.getRecords().get(recordIndex));
+    }
+
+    /**
+     * Returns the data value of the record as bytes, or {@code null} if the record has none. CBOR byte
+     * strings are returned as they are and text is decoded from base64url.
+     */
+    public byte[] getData(final int recordIndex) {
+        final JsonNode value = getDataNode(recordIndex);
+
+        if (value == null) {
+            return null;
+        }
+
+        return value.isBinary() ? ((BinaryNode) value).binaryValue() : DataValues.decode(value.asText());
+    }
+
+    /**
+     * Writes the data value of the record into the buffer starting at its position, and returns the number
+     * of bytes written or -1 if the record has none. Base64url text is decoded straight into the buffer.
+     *
+     * @throws java.nio.BufferOverflowException if the data does not fit in the remaining bytes
+     */
+    public int getData(final int recordIndex, final ByteBuffer buffer) {
+        final JsonNode value = getDataNode(recordIndex);
+
+        if (value == null) {
+            return -1;
+        } else if (value.isBinary()) {
+            final byte[] data = ((BinaryNode) value).binaryValue();
+            buffer.put(data);
+            return data.length;
+        }
+
+        return DataValues.decode(value.asText(), buffer);
+    }
+
+    private JsonNode getDataNode(final int recordIndex) {
+        return formatter.getRecords().get(recordIndex).get(formatter.getLabelRegistry().getFormattedLabel(Label.DATA_VALUE));
+    }
+
+    public int getDoubles(final Label<Double> label, final double[] values) {
+        return getDoubles(label, values, 0);
+    }
+
+    public int getDoubles(final Label<Double> label, final double[] values, final int offset) {
+        if (offset < 0 || offset > values.length) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " out of range 0.." + values.length);
+        }
+
+        final JsonNode records = formatter.getRecords();
+        final String formattedLabel = formatter.getLabelRegistry().getFormattedLabel(label);
+        final int count = Math.min(records.size(), values.length - offset);
+
+        for (int i = 0; i < count; i++) {
+            final JsonNode value = records.get(i).get(formattedLabel);
+            values[offset + i] = value == null ? Double.NaN : value.doubleValue();
+        }
+
+        return count;
+    }
+
     public void addRecord(final byte[] record) throws IOException {
         formatter.addRecord(record);
     }
 
+    public void addRecord(final byte[] record, final int offset, final int length) throws IOException {
+        ((ArrayNode) formatter.getRecords()).add(formatter.getMapper().readValue(record, offset, length, JsonNode.class));
+    }
+
+    public void addRecord(final ByteBuffer record) throws IOException {
+        ((ArrayNode) formatter.getRecords()).add(readTree(formatter.getMapper(), record));
+    }
+
     public final void addRecord(final Label.Pair ... pairs) {
         final JsonNode record = formatter.getMapper().createObjectNode();
 
         for (final Label.Pair pair : pairs) {
-            final Class<?> type = pair.getLabel().getClassType();
-
-            if (type.isInstance(STRING_INSTANCE)) {
-                ((ObjectNode) record).put(pair.getLabel().getFormattedLabel(formatter.getClass()), (String) pair.getValue());
-            } else if (type.isInstance(DOUBLE_INSTANCE)) {
-                ((ObjectNode) record).put(pair.getLabel().getFormattedLabel(formatter.getClass()), (Double) pair.getValue());
-            } else if (type.isInstance(INTEGER_INSTANCE)) {
-                ((ObjectNode) record).put(pair.getLabel().getFormattedLabel(formatter.getClass()), (Integer) pair.getValue());
-            } else if (type.isInstance(BOOLEAN_INSTANCE)) {
-                ((ObjectNode) record).put(pair.getLabel().getFormattedLabel(formatter.getClass()), (Boolean) pair.getValue());
-            } else {
-                throw new UnsupportedOperationException(
-                        type + " is not supported. Use String, Double, Integer or Boolean");
+            final String formattedLabel = formatter.getLabelRegistry().getFormattedLabel(pair.getLabel());
+
+            switch (pair.getLabel().getValueType()) {
+                case STRING:
+                    if (pair.getData() != null) {
+                        ((ObjectNode) record).set(formattedLabel, formatter.createDataNode(pair.getData()));
+                    } else {
+                        ((ObjectNode) record).put(formattedLabel, (String) pair.getValue());
+                    }
+                    break;
+                case DOUBLE:
+                    ((ObjectNode) record).put(formattedLabel, (Double) pair.getValue());
+                    break;
+                case INTEGER:
+                    ((ObjectNode) record).put(formattedLabel, (Integer) pair.getValue());
+                    break;
+                case BOOLEAN:
+                    ((ObjectNode) record).put(formattedLabel, (Boolean) pair.getValue());
+                    break;
+                default:
+                    throw new UnsupportedOperationException(
+                            pair.getLabel().getClassType() + " is not supported. Use String, Double, Integer or Boolean");
             }
         }
 
         ((ArrayNode) formatter.getRecords()).add(record);
     }
 
+    /**
+     * Returns the encoded SenML message. The bytes are collected in a buffer owned by this instance,
+     * which is kept between calls so that a reused instance only allocates the returned array.
+     */
     public byte[] getSenML() throws IOException {
-        return formatter.getSenML(formatter.getRecords());
+        if (output == null) {
+            output = new ByteArrayBuilder();
+        } else {
+            output.reset();
+        }
+
+        final long start = startEncode();
+        formatter.writeSenML(formatter.getRecords(), output);
+        final byte[] senML = output.toByteArray();
+        endEncode(start, senML.length);
+        return senML;
+    }
+
+    /**
+     * Writes the encoded SenML message to the stream. The stream is flushed but not closed.
+     */
+    public void getSenML(final OutputStream outputStream) throws IOException {
+        if (Metrics.get() == SenMLMetrics.NONE) {
+            formatter.writeSenML(formatter.getRecords(), outputStream);
+            return;
+        }
+
+        final long start = startEncode();
+        final CountingOutputStream countingStream = new CountingOutputStream(outputStream);
+        formatter.writeSenML(formatter.getRecords(), countingStream);
+        endEncode(start, countingStream.getCount());
+    }
+
+    /**
+     * Writes the encoded SenML message into the buffer starting at its position, and returns the number
+     * of bytes written. The position is advanced past the message.
+     *
+     * @throws java.nio.BufferOverflowException if the message does not fit in the remaining bytes
+     */
+    public int getSenML(final ByteBuffer buffer) throws IOException {
+        final long start = startEncode();
+        final int position = buffer.position();
+        formatter.writeSenML(formatter.getRecords(), new ByteBufferOutputStream(buffer));
+        endEncode(start, buffer.position() - position);
+        return buffer.position() - position;
+    }
+
+    private static long startEncode() {
+        return Metrics.get() == SenMLMetrics.NONE ? 0 : System.nanoTime();
+    }
+
+    private void endEncode(final long start, final long bytes) {
+        final SenMLMetrics metrics = Metrics.get();
+
+        if (start != 0 && metrics != SenMLMetrics.NONE) {
+            metrics.packEncoded(Metrics.format(formatter.getClass()), bytes, size(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Removes all records so the instance can be used for a new message. The encoding options of the
+     * instance and its output buffer are kept.
+     */
+    public void reset() {
+        ((ArrayNode) formatter.getRecords()).removeAll();
+        rawData = null;
+        rawRecords = null;
+    }
+
+    /**
+     * Replaces the records of this instance with the records of the encoded message, in the same format
+     * that the instance was created with. If the message cannot be decoded the instance is left empty.
+     */
+    public void reset(final byte[] buffer) throws IOException {
+        reset();
+        try {
+            decode(Metrics.format(formatter.getClass()), buffer.length, () -> {
+                readRecords(buffer);
+                return this;
+            });
+        } catch (final IOException | RuntimeException e) {
+            reset();
+            throw e;
+        }
+    }
+
+    private void readRecords(final byte[] buffer) throws IOException {
+        final ObjectMapper mapper = formatter.getMapper();
+        final ArrayNode records = (ArrayNode) formatter.getRecords();
+
+        try (JsonParser parser = mapper.getFactory().createParser(buffer)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "A SenML pack must start with an array");
+            }
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new JsonParseException(parser, "Unexpected end of SenML pack");
+                }
+                records.add((JsonNode) mapper.readTree(parser));
+            }
+        }
+    }
+
+    /**
+     * Parses the remaining bytes of the buffer without moving its position. Heap buffers are parsed
+     * in place from their backing array and direct or mapped buffers are streamed from a duplicate.
+     */
+    private static JsonNode readTree(final ObjectMapper mapper, final ByteBuffer buffer) throws IOException {
+        try (JsonParser parser = SenMLReader.createParser(mapper.getFactory(), buffer)) {
+            return mapper.readValue(parser, JsonNode.class);
+        }
+    }
+
+    private static JsonNode readTree(final ObjectMapper mapper, final byte[] buffer, final SenMLInterner interner) throws IOException {
+        return mapper.reader().with(interner.getNodeFactory()).readTree(buffer);
+    }
+
+    private static ArrayNode decode(final ObjectMapper mapper, final byte[] buffer, final RecordIndex index) throws IOException {
+        final ArrayNode records = mapper.createArrayNode();
+
+        for (int i = 0; i < index.size(); i++) {
+            records.add(mapper.readValue(buffer, index.start(i), index.length(i), JsonNode.class));
+        }
+
+        return records;
+    }
+
+    private static ByteBuffer map(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
     }
 
 }
@@ -0,0 +1,86 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Keeps one {@link SenMLAPI} per thread so that worker threads can encode and decode message after
+ * message without creating a new instance, formatter, record array and output buffer each time.
+ * The instance returned by {@link #acquire()} is reset and must not be shared with other threads.
+ */
+public final class SenMLAPIPool<T extends Formatter> {
+
+    private final ThreadLocal<SenMLAPI<T>> instances;
+
+    private SenMLAPIPool(final Supplier<SenMLAPI<T>> factory) {
+        this.instances = ThreadLocal.withInitial(factory);
+    }
+
+    public static SenMLAPIPool<JsonFormatter> initJson() {
+        return new SenMLAPIPool<>(SenMLAPI::initJson);
+    }
+
+    public static SenMLAPIPool<CborFormatter> initCbor() {
+        return new SenMLAPIPool<>(SenMLAPI::initCbor);
+    }
+
+    public static SenMLAPIPool<CborFormatter> initCborWithIntegerKeys() {
+        return new SenMLAPIPool<>(SenMLAPI::initCborWithIntegerKeys);
+    }
+
+    /**
+     * Returns the empty instance of the calling thread.
+     */
+    public SenMLAPI<T> acquire() {
+        final SenMLAPI<T> senMLAPI = instances.get();
+        senMLAPI.reset();
+        return senMLAPI;
+    }
+
+    /**
+     * Returns the instance of the calling thread holding the records of the encoded message.
+     */
+    public SenMLAPI<T> acquire(final byte[] buffer) throws IOException {
+        final SenMLAPI<T> senMLAPI = instances.get();
+        senMLAPI.reset(buffer);
+        return senMLAPI;
+    }
+
+}
@@ -0,0 +1,296 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package teamethernet.senmlapi;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-pass rollup of numeric values per resolved name into tumbling or sliding time windows. Windows
+ * are divided into panes of one step each, and every name keeps the count, sum, minimum and maximum of
+ * the panes of its open windows in primitive arrays, so memory is bounded by the number of names times
+ * the number of panes in a window.
+ * <p>
+ * A window is written to the {@link SenMLWriter} once a record at or after its end has been added, as a
+ * record with the name, the unit, the window start as time and the aggregate as value, or as sum for
+ * {@link Aggregate#SUM}. Records that arrive after all of their windows have been written are dropped
+ * and counted by {@link #getLateRecords()}. Records without a numeric value are ignored.
+ */
+public class SenMLAggregator {
+
+    public enum Aggregate {
+        MIN, MAX, AVG, SUM, COUNT
+    }
+
+    private final SenMLWriter writer;
+    private final Aggregate aggregate;
+    private final double step;
+    private final int panes;
+
+    private final SenMLResolver resolver = new SenMLResolver();
+    private final Map<String, Series> series = new LinkedHashMap<>();
+
+    private double watermark = Double.NEGATIVE_INFINITY;
+    private long watermarkPane = Long.MIN_VALUE;
+    private long lateRecords;
+
+    private SenMLAggregator(final SenMLWriter writer, final Aggregate aggregate, final double width, final double step) {
+        final long panes = Math.round(width / step);
+
+        if (!(step > 0) || panes < 1 || panes > Integer.MAX_VALUE || Math.abs(panes * step - width) > Math.ulp(width) * panes) {
+            throw new IllegalArgumentException("Window width " + width + " must be a positive multiple of step " + step);
+        }
+
+        this.writer = writer;
+        this.aggregate = aggregate;
+        this.step = step;
+        this.panes = (int) panes;
+    }
+
+    public static SenMLAggregator tumbling(final SenMLWriter writer, final Aggregate aggregate, final double width) {
+        return new SenMLAggregator(writer, aggregate, width, width);
+    }
+
+    /**
+     * Windows of {@code width} that start every {@code step}. The width must be a multiple of the step.
+     */
+    public static SenMLAggregator sliding(final SenMLWriter writer, final Aggregate aggregate, final double width,
+                                          final double step) {
+        return new SenMLAggregator(writer, aggregate, width, step);
+    }
+
+    /**
+     * Resolves the record with the base fields of the records added before it and adds it.
+     */
+    public void add(final SenMLRecord record) throws IOException {
+        add(resolver.resolve(record));
+    }
+
+    public void add(final ResolvedRecord record) throws IOException {
+        if (!record.hasValue()) {
+            return;
+        }
+
+        final double time = record.getTime();
+        final long pane = (long) Math.floor(time / step);
+
+        if (time > watermark) {
+            watermark = time;
+
+            if (pane > watermarkPane) {
+                watermarkPane = pane;
+                writeCompleteWindows();
+            }
+        }
+
+        final long firstOpenWindow = watermarkPane - panes + 1;
+        if (pane < firstOpenWindow) {
+            lateRecords++;
+            return;
+        }
+
+        Series current = series.get(record.getName());
+        if (current == null) {
+            current = new Series(record.getName(), record.getUnit(), Math.max(pane - panes + 1, firstOpenWindow));
+            series.put(record.getName(), current);
+        }
+        current.add(pane, record.getValue());
+    }
+
+    /**
+     * Writes all windows that still hold values, and forgets them.
+     */
+    public void flush() throws IOException {
+        for (final Series current : series.values()) {
+            current.writeWindows(Long.MAX_VALUE);
+        }
+        series.clear();
+        writer.flush();
+    }
+
+    public long getLateRecords() {
+        return lateRecords;
+    }
+
+    private void writeCompleteWindows() throws IOException {
+        final Iterator<Series> iterator = series.values().iterator();
+
+        while (iterator.hasNext()) {
+            final Series current = iterator.next();
+            current.writeWindows(watermarkPane - panes);
+
+            if (current.occupied == 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private class Series {
+
+        private final String name;
+        private final String unit;
+
+        private final long[] paneIndices = new long[panes];
+        private final long[] counts = new long[panes];
+        private final double[] sums = new double[panes];
+        private final double[] mins = new double[panes];
+        private final double[] maxs = new double[panes];
+
+        private long nextWindow;
+        private int occupied;
+
+        Series(final String name, final String unit, final long nextWindow) {
+            this.name = name;
+            this.unit = unit;
+            this.nextWindow = nextWindow;
+            Arrays.fill(paneIndices, Long.MIN_VALUE);
+        }
+
+        void add(final long pane, final double value) {
+            final int slot = slot(pane);
+
+            if (paneIndices[slot] != pane) {
+                paneIndices[slot] = pane;
+                counts[slot] = 0;
+                sums[slot] = 0;
+                mins[slot] = Double.POSITIVE_INFINITY;
+                maxs[slot] = Double.NEGATIVE_INFINITY;
+                occupied++;
+            }
+
+            counts[slot]++;
+            sums[slot] += value;
+            mins[slot] = Math.min(mins[slot], value);
+            maxs[slot] = Math.max(maxs[slot], value);
+        }
+
+        /**
+         * Writes the windows that start at or before {@code lastWindow}, skipping over empty ones.
+         */
+        void writeWindows(final long lastWindow) throws IOException {
+            while (nextWindow <= lastWindow && occupied > 0) {
+                final long firstPane = firstPane();
+
+                if (nextWindow < firstPane - panes + 1) {
+                    nextWindow = firstPane - panes + 1;
+                    continue;
+                }
+
+                writeWindow(nextWindow);
+
+                final int slot = slot(nextWindow);
+                if (paneIndices[slot] == nextWindow) {
+                    paneIndices[slot] = Long.MIN_VALUE;
+                    occupied--;
+                }
+                nextWindow++;
+            }
+        }
+
+        private long firstPane() {
+            long first = Long.MAX_VALUE;
+            for (final long pane : paneIndices) {
+                if (pane != Long.MIN_VALUE) {
+                    first = Math.min(first, pane);
+                }
+            }
+            return first;
+        }
+
+        private void writeWindow(final long window) throws IOException {
+            long count = 0;
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+
+            for (int i = 0; i < panes; i++) {
+                final long pane = paneIndices[i];
+
+                if (pane >= window && pane < window + panes) {
+                    count += counts[i];
+                    sum += sums[i];
+                    min = Math.min(min, mins[i]);
+                    max = Math.max(max, maxs[i]);
+                }
+            }
+
+            if (count == 0) {
+                return;
+            }
+
+            final List<Label.Pair> pairs = new ArrayList<>(4);
+            pairs.add(Label.NAME.attachValue(name));
+            if (unit != null) {
+                pairs.add(Label.UNIT.attachValue(unit));
+            }
+            pairs.add(Label.TIME.attachValue(window * step));
+
+            switch (aggregate) {
+                case MIN:
+                    pairs.add(Label.VALUE.attachValue(min));
+                    break;
+                case MAX:
+                    pairs.add(Label.VALUE.attachValue(max));
+                    break;
+                case AVG:
+                    pairs.add(Label.VALUE.attachValue(sum / count));
+                    break;
+                case SUM:
+                    pairs.add(Label.SUM.attachValue(sum));
+                    break;
+                case COUNT:
+                    pairs.add(Label.VALUE.attachValue((double) count));
+                    break;
+            }
+
+            writer.addRecord(new SenMLRecord(pairs));
+        }
+
+        private int slot(final long pane) {
+            return (int) Math.floorMod(pane, (long) panes);
+        }
+
+    }
+
+}
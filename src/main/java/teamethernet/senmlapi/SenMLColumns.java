@@ -0,0 +1,322 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented storage of a SenML pack. Every label is kept as its own column: numbers in primitive
+ * arrays, booleans and presence in bit sets, and strings as codes into a dictionary shared by all string
+ * labels. Data values that were decoded as CBOR byte strings keep their bytes in a column of their own.
+ * Columns are only allocated for labels that occur in the pack.
+ */
+public class SenMLColumns {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final BitSet[] presence = new BitSet[Label.values().size()];
+    private final double[][] doubleColumns = new double[Label.values().size()][];
+    private final int[][] intColumns = new int[Label.values().size()][];
+    private final BitSet[] booleanColumns = new BitSet[Label.values().size()];
+    private byte[][] dataColumn;
+
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> dictionaryCodes = new HashMap<>();
+
+    private int capacity = INITIAL_CAPACITY;
+    private int size;
+
+    public static SenMLColumns read(final SenMLReader reader) throws IOException {
+        final SenMLColumns columns = new SenMLColumns();
+        SenMLRecord record;
+
+        while ((record = reader.next()) != null) {
+            columns.addRecord(record);
+        }
+
+        return columns;
+    }
+
+    public static SenMLColumns of(final SenMLAPI<?> senMLAPI) {
+        final SenMLColumns columns = new SenMLColumns();
+
+        for (int i = 0; i < senMLAPI.size(); i++) {
+            columns.addRecord(senMLAPI.getSenMLRecord(i));
+        }
+
+        return columns;
+    }
+
+    public void write(final SenMLWriter writer) throws IOException {
+        for (int i = 0; i < size; i++) {
+            writer.addRecord(getRecord(i));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void addRecord(final Label.Pair... pairs) {
+        addRecord(Arrays.asList(pairs));
+    }
+
+    public void addRecord(final SenMLRecord record) {
+        addRecord(record.getPairs());
+    }
+
+    private void addRecord(final List<Label.Pair> pairs) {
+        if (size == capacity) {
+            grow();
+        }
+
+        for (final Label.Pair pair : pairs) {
+            final int index = pair.getLabel().getIndex();
+
+            if (presence[index] == null) {
+                presence[index] = new BitSet(capacity);
+            }
+            presence[index].set(size);
+
+            if (pair.getData() != null) {
+                if (dataColumn == null) {
+                    dataColumn = new byte[capacity][];
+                }
+                dataColumn[size] = pair.getData();
+                continue;
+            }
+
+            switch (pair.getLabel().getValueType()) {
+                case STRING:
+                    intColumn(index)[size] = encode((String) pair.getValue());
+                    break;
+                case DOUBLE:
+                    doubleColumn(index)[size] = (Double) pair.getValue();
+                    break;
+                case INTEGER:
+                    intColumn(index)[size] = (Integer) pair.getValue();
+                    break;
+                case BOOLEAN:
+                    if (booleanColumns[index] == null) {
+                        booleanColumns[index] = new BitSet(capacity);
+                    }
+                    booleanColumns[index].set(size, (Boolean) pair.getValue());
+                    break;
+                default:
+                    throw new UnsupportedOperationException(
+                            pair.getLabel().getClassType() + " is not supported. Use String, Double, Integer or Boolean");
+            }
+        }
+
+        size++;
+    }
+
+    public boolean hasValue(final Label<?> label, final int recordIndex) {
+        final BitSet column = presence[label.getIndex()];
+        return column != null && column.get(checkIndex(recordIndex));
+    }
+
+    public double getDouble(final Label<Double> label, final int recordIndex) {
+        return doubleColumns[presentIndex(label, recordIndex)][recordIndex];
+    }
+
+    public int getInt(final Label<Integer> label, final int recordIndex) {
+        return intColumns[presentIndex(label, recordIndex)][recordIndex];
+    }
+
+    public boolean getBoolean(final Label<Boolean> label, final int recordIndex) {
+        final BitSet column = booleanColumns[presentIndex(label, recordIndex)];
+        return column != null && column.get(recordIndex);
+    }
+
+    public String getString(final Label<String> label, final int recordIndex) {
+        final int index = presentIndex(label, recordIndex);
+
+        if (isBinary(label, recordIndex)) {
+            return DataValues.encode(dataColumn[recordIndex]);
+        }
+
+        return dictionary.get(intColumns[index][recordIndex]);
+    }
+
+    /**
+     * Returns the data value of the record as bytes, or {@code null} if the record has none. CBOR byte
+     * strings are returned as they are and text is decoded from base64url.
+     */
+    public byte[] getData(final int recordIndex) {
+        if (!hasValue(Label.DATA_VALUE, recordIndex)) {
+            return null;
+        }
+
+        return isBinary(Label.DATA_VALUE, recordIndex)
+                ? dataColumn[recordIndex] : DataValues.decode(getString(Label.DATA_VALUE, recordIndex));
+    }
+
+    public int getDoubles(final Label<Double> label, final double[] values, final int offset) {
+        if (offset < 0 || offset > values.length) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " out of range 0.." + values.length);
+        }
+
+        final BitSet present = presence[label.getIndex()];
+        final double[] column = doubleColumns[label.getIndex()];
+        final int count = Math.min(size, values.length - offset);
+
+        if (column == null) {
+            Arrays.fill(values, offset, offset + count, Double.NaN);
+        } else {
+            System.arraycopy(column, 0, values, offset, count);
+            for (int i = present.nextClearBit(0); i < count; i = present.nextClearBit(i + 1)) {
+                values[offset + i] = Double.NaN;
+            }
+        }
+
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <S> S getValue(final Label<S> label, final int recordIndex) {
+        if (!hasValue(label, recordIndex)) {
+            return null;
+        }
+
+        switch (label.getValueType()) {
+            case STRING:
+                return label.getClassType().cast(getString((Label<String>) label, recordIndex));
+            case DOUBLE:
+                return label.getClassType().cast(getDouble((Label<Double>) label, recordIndex));
+            case INTEGER:
+                return label.getClassType().cast(getInt((Label<Integer>) label, recordIndex));
+            case BOOLEAN:
+                return label.getClassType().cast(getBoolean((Label<Boolean>) label, recordIndex));
+            default:
+                throw new UnsupportedOperationException(
+                        label.getClassType() + " is not supported. Use String, Double, Integer or Boolean");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public SenMLRecord getRecord(final int recordIndex) {
+        final List<Label.Pair> pairs = new ArrayList<>();
+
+        for (final Label label : Label.values()) {
+            if (isBinary(label, recordIndex)) {
+                pairs.add(Label.DATA_VALUE.attachData(dataColumn[recordIndex]));
+            } else if (hasValue(label, recordIndex)) {
+                pairs.add(label.attachValue(getValue(label, recordIndex)));
+            }
+        }
+
+        return new SenMLRecord(pairs);
+    }
+
+    /**
+     * Returns whether the label of the record holds a CBOR byte string rather than a dictionary code.
+     */
+    private boolean isBinary(final Label<?> label, final int recordIndex) {
+        return label == Label.DATA_VALUE && dataColumn != null && dataColumn[recordIndex] != null;
+    }
+
+    private int presentIndex(final Label<?> label, final int recordIndex) {
+        if (!hasValue(label, recordIndex)) {
+            throw new IllegalArgumentException(LabelRegistry.JSON.getFormattedLabel(label)
+                    + " is not present in record " + recordIndex);
+        }
+
+        return label.getIndex();
+    }
+
+    private int checkIndex(final int recordIndex) {
+        if (recordIndex < 0 || recordIndex >= size) {
+            throw new IndexOutOfBoundsException("Record index " + recordIndex + " out of range 0.." + size);
+        }
+
+        return recordIndex;
+    }
+
+    private int encode(final String value) {
+        Integer code = dictionaryCodes.get(value);
+
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            dictionaryCodes.put(value, code);
+        }
+
+        return code;
+    }
+
+    private double[] doubleColumn(final int index) {
+        if (doubleColumns[index] == null) {
+            doubleColumns[index] = new double[capacity];
+        }
+
+        return doubleColumns[index];
+    }
+
+    private int[] intColumn(final int index) {
+        if (intColumns[index] == null) {
+            intColumns[index] = new int[capacity];
+        }
+
+        return intColumns[index];
+    }
+
+    private void grow() {
+        capacity *= 2;
+
+        if (dataColumn != null) {
+            dataColumn = Arrays.copyOf(dataColumn, capacity);
+        }
+
+        for (int i = 0; i < doubleColumns.length; i++) {
+            if (doubleColumns[i] != null) {
+                doubleColumns[i] = Arrays.copyOf(doubleColumns[i], capacity);
+            }
+            if (intColumns[i] != null) {
+                intColumns[i] = Arrays.copyOf(intColumns[i], capacity);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rewrites a pack so that the name prefix, unit and time shared by its records are sent once as
+ * base name, base unit and base time on the first record. Every record of the result resolves to the
+ * same name, unit, time and values as the original under RFC 8428 section 4.6; a base field is only
+ * used when that holds for all records. Base values and base sums are resolved into the values.
+ */
+public final class SenMLCompactor {
+
+    private SenMLCompactor() {
+    }
+
+    public static List<SenMLRecord> compact(final List<SenMLRecord> records) {
+        final SenMLResolver resolver = new SenMLResolver();
+        final List<ResolvedRecord> resolved = new ArrayList<>(records.size());
+        Integer version = null;
+
+        for (final SenMLRecord record : records) {
+            resolved.add(resolver.resolve(record));
+            if (version == null) {
+                version = record.getValue(Label.BASE_VERSION);
+            }
+        }
+
+        final String baseName = commonPrefix(resolved);
+        final String baseUnit = commonUnit(resolved);
+        final double baseTime = baseTime(resolved);
+        final List<SenMLRecord> compacted = new ArrayList<>(resolved.size());
+
+        for (final ResolvedRecord record : resolved) {
+            final List<Label.Pair> pairs = new ArrayList<>();
+
+            if (compacted.isEmpty()) {
+                if (version != null) {
+                    pairs.add(Label.BASE_VERSION.attachValue(version));
+                }
+                if (!baseName.isEmpty()) {
+                    pairs.add(Label.BASE_NAME.attachValue(baseName));
+                }
+                if (baseTime != 0) {
+                    pairs.add(Label.BASE_TIME.attachValue(baseTime));
+                }
+                if (baseUnit != null) {
+                    pairs.add(Label.BASE_UNIT.attachValue(baseUnit));
+                }
+            }
+
+            if (record.getName().length() > baseName.length()) {
+                pairs.add(Label.NAME.attachValue(record.getName().substring(baseName.length())));
+            }
+            if (record.getUnit() != null && !record.getUnit().equals(baseUnit)) {
+                pairs.add(Label.UNIT.attachValue(record.getUnit()));
+            }
+            if (record.hasValue()) {
+                pairs.add(Label.VALUE.attachValue(record.getValue()));
+            }
+            if (record.getStringValue() != null) {
+                pairs.add(Label.STRING_VALUE.attachValue(record.getStringValue()));
+            }
+            if (record.getBooleanValue() != null) {
+                pairs.add(Label.BOOLEAN_VALUE.attachValue(record.getBooleanValue()));
+            }
+            if (record.getDataPair() != null) {
+                pairs.add(record.getDataPair());
+            }
+            if (record.hasSum()) {
+                pairs.add(Label.SUM.attachValue(record.getSum()));
+            }
+            if (record.getTime() != baseTime) {
+                pairs.add(Label.TIME.attachValue(record.getTime() - baseTime));
+            }
+            if (record.hasUpdateTime()) {
+                pairs.add(Label.UPDATE_TIME.attachValue(record.getUpdateTime()));
+            }
+
+            compacted.add(new SenMLRecord(pairs));
+        }
+
+        return compacted;
+    }
+
+    private static String commonPrefix(final List<ResolvedRecord> records) {
+        if (records.isEmpty()) {
+            return "";
+        }
+
+        final String first = records.get(0).getName();
+        int length = first.length();
+
+        for (final ResolvedRecord record : records) {
+            final String name = record.getName();
+            length = Math.min(length, name.length());
+
+            for (int i = 0; i < length; i++) {
+                if (name.charAt(i) != first.charAt(i)) {
+                    length = i;
+                    break;
+                }
+            }
+        }
+
+        return first.substring(0, length);
+    }
+
+    /**
+     * Returns the most frequent unit, or {@code null} if some record has no unit, since a base unit
+     * would then give that record one.
+     */
+    private static String commonUnit(final List<ResolvedRecord> records) {
+        final Map<String, Integer> counts = new HashMap<>();
+        String unit = null;
+        int count = 0;
+
+        for (final ResolvedRecord record : records) {
+            if (record.getUnit() == null) {
+                return null;
+            }
+
+            final int unitCount = counts.merge(record.getUnit(), 1, Integer::sum);
+            if (unitCount > count) {
+                unit = record.getUnit();
+                count = unitCount;
+            }
+        }
+
+        return count > 1 ? unit : null;
+    }
+
+    /**
+     * Returns the time of the first record, or 0 if adding it back to the relative time of some record
+     * would not give exactly the original time.
+     */
+    private static double baseTime(final List<ResolvedRecord> records) {
+        if (records.size() < 2) {
+            return 0;
+        }
+
+        final double baseTime = records.get(0).getTime();
+
+        for (final ResolvedRecord record : records) {
+            if (baseTime + (record.getTime() - baseTime) != record.getTime()) {
+                return 0;
+            }
+        }
+
+        return baseTime;
+    }
+
+}
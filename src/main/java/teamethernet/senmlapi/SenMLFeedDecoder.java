@@ -0,0 +1,364 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package teamethernet.senmlapi;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Push-style decoder for packs that arrive in chunks, for example from a non-blocking socket. Chunks of
+ * any size are given to {@link #feed(byte[], int, int)}, and {@link #next()} returns every record as
+ * soon as its last byte has been fed, or {@code null} when it needs more input. Call {@link #next()}
+ * until it returns {@code null} before feeding the next chunk; the chunk may be reused after that.
+ * <p>
+ * JSON is decoded with Jackson's non-blocking parser. CBOR is framed by scanning the headers of the
+ * received bytes, resuming where the previous chunk stopped, and only the bytes of the record that is not
+ * complete yet are kept between chunks.
+ */
+public abstract class SenMLFeedDecoder implements Closeable {
+
+    private final SenMLMetrics.Format format;
+
+    SenMLInterner interner;
+    boolean inputEnded;
+    boolean finished;
+
+    private SenMLFeedDecoder(final SenMLMetrics.Format format) {
+        this.format = format;
+    }
+
+    public static SenMLFeedDecoder initJson() throws IOException {
+        return new JsonFeedDecoder();
+    }
+
+    public static SenMLFeedDecoder initCbor() {
+        return new CborFeedDecoder();
+    }
+
+    /**
+     * Returns the strings of the records decoded from now on through {@code interner}.
+     */
+    public SenMLFeedDecoder withInterner(final SenMLInterner interner) {
+        this.interner = interner;
+        return this;
+    }
+
+    public void feed(final byte[] chunk) throws IOException {
+        feed(chunk, 0, chunk.length);
+    }
+
+    public void feed(final byte[] chunk, final int offset, final int length) throws IOException {
+        if (inputEnded) {
+            throw new IllegalStateException("No input can be fed after endOfInput()");
+        }
+
+        feedChunk(chunk, offset, length);
+    }
+
+    /**
+     * Signals that no more chunks will be fed. {@link #next()} then fails if the pack is not complete.
+     */
+    public void endOfInput() {
+        if (!inputEnded) {
+            inputEnded = true;
+            endChunks();
+        }
+    }
+
+    /**
+     * Returns the next complete record, or {@code null} if more input is needed or the pack has ended.
+     */
+    public SenMLRecord next() throws IOException {
+        if (finished) {
+            return null;
+        }
+
+        try {
+            return readNext();
+        } catch (IOException e) {
+            Metrics.get().decodeFailed(format, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns whether the end of the pack has been decoded.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    abstract void feedChunk(byte[] chunk, int offset, int length) throws IOException;
+
+    abstract void endChunks();
+
+    abstract SenMLRecord readNext() throws IOException;
+
+    private static final class JsonFeedDecoder extends SenMLFeedDecoder {
+
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+
+        private boolean started;
+        private List<Label.Pair> pairs;
+        private Label label;
+        private int skipDepth;
+
+        private JsonFeedDecoder() throws IOException {
+            super(SenMLMetrics.Format.JSON);
+            this.parser = JsonFormatter.MAPPER.getFactory().createNonBlockingByteArrayParser();
+            this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        @Override
+        void feedChunk(final byte[] chunk, final int offset, final int length) throws IOException {
+            if (!feeder.needMoreInput()) {
+                throw new IllegalStateException("Call next() until it returns null before feeding more input");
+            }
+
+            feeder.feedInput(chunk, offset, offset + length);
+        }
+
+        @Override
+        void endChunks() {
+            feeder.endOfInput();
+        }
+
+        @Override
+        SenMLRecord readNext() throws IOException {
+            JsonToken token;
+
+            while ((token = parser.nextToken()) != JsonToken.NOT_AVAILABLE) {
+                if (token == null) {
+                    throw new JsonParseException(parser, "Unexpected end of SenML pack");
+                } else if (!started) {
+                    if (token != JsonToken.START_ARRAY) {
+                        throw new JsonParseException(parser, "A SenML pack must start with an array");
+                    }
+                    started = true;
+                } else if (skipDepth > 0) {
+                    if (token.isStructStart()) {
+                        skipDepth++;
+                    } else if (token.isStructEnd()) {
+                        skipDepth--;
+                    }
+                } else if (pairs == null) {
+                    if (token == JsonToken.END_ARRAY) {
+                        finished = true;
+                        return null;
+                    } else if (token != JsonToken.START_OBJECT) {
+                        throw new JsonParseException(parser, "Expected a SenML record but found " + token);
+                    }
+                    pairs = new ArrayList<>();
+                } else if (token == JsonToken.FIELD_NAME) {
+                    label = LabelRegistry.JSON.getLabel(parser.getCurrentName());
+
+                    if (label == null) {
+                        Metrics.get().unknownLabel(SenMLMetrics.Format.JSON, parser.getCurrentName());
+                    }
+                } else if (token == JsonToken.END_OBJECT) {
+                    final SenMLRecord record = new SenMLRecord(pairs);
+                    pairs = null;
+                    return record;
+                } else if (label == null) {
+                    if (token.isStructStart()) {
+                        skipDepth = 1;
+                    }
+                } else if (token.isStructStart()) {
+                    throw new JsonParseException(parser, "Unexpected " + token + " for " + parser.getCurrentName());
+                } else {
+                    pairs.add(SenMLReader.readPair(parser, label, interner));
+                }
+            }
+
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+
+    }
+
+    private static final class CborFeedDecoder extends SenMLFeedDecoder {
+
+        private static final int BREAK = 0xFF;
+
+        private final RecordIndex.PartialCborItem partialRecord = new RecordIndex.PartialCborItem();
+
+        private byte[] buffer = new byte[256];
+        private int position;
+        private int limit;
+
+        private boolean started;
+        private boolean indefinite;
+        private long remaining;
+
+        private CborFeedDecoder() {
+            super(SenMLMetrics.Format.CBOR);
+        }
+
+        @Override
+        void feedChunk(final byte[] chunk, final int offset, final int length) {
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                limit -= position;
+                position = 0;
+            }
+
+            if (limit + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, limit + length));
+            }
+
+            System.arraycopy(chunk, offset, buffer, limit, length);
+            limit += length;
+        }
+
+        @Override
+        void endChunks() {
+        }
+
+        @Override
+        SenMLRecord readNext() throws IOException {
+            if (!started && !readHeader()) {
+                return needMoreInput();
+            }
+
+            if (indefinite && position < limit && (buffer[position] & 0xFF) == BREAK) {
+                position++;
+                finished = true;
+                return null;
+            } else if (!indefinite && remaining == 0) {
+                finished = true;
+                return null;
+            }
+
+            if (position == limit) {
+                return needMoreInput();
+            } else if ((buffer[position] & 0xFF) >> 5 != 5) {
+                throw new IOException("Expected a SenML record but found CBOR major type " + ((buffer[position] & 0xFF) >> 5));
+            }
+
+            final int end = partialRecord.end(buffer, position, limit);
+            if (end < 0) {
+                return needMoreInput();
+            }
+
+            final SenMLRecord record;
+            try (JsonParser parser = CborFormatter.MAPPER.getFactory().createParser(buffer, position, end - position)) {
+                parser.nextToken();
+                record = SenMLReader.readRecord(parser, LabelRegistry.CBOR, SenMLMetrics.Format.CBOR, interner);
+            }
+
+            position = end;
+            remaining--;
+            return record;
+        }
+
+        /**
+         * Reads the array header of the pack, or returns {@code false} if it has not been fed completely.
+         */
+        private boolean readHeader() throws IOException {
+            if (position == limit) {
+                return false;
+            }
+
+            final int initialByte = buffer[position] & 0xFF;
+            final int info = initialByte & 0x1F;
+
+            if (initialByte >> 5 != 4) {
+                throw new IOException("A SenML pack must start with an array");
+            }
+
+            final int argumentBytes;
+            if (info < 24 || info == 31) {
+                argumentBytes = 0;
+            } else if (info <= 27) {
+                argumentBytes = 1 << (info - 24);
+            } else {
+                throw new IOException("Invalid CBOR additional information " + info);
+            }
+
+            if (limit - position < 1 + argumentBytes) {
+                return false;
+            }
+
+            long count = argumentBytes == 0 ? info : 0;
+            for (int i = 1; i <= argumentBytes; i++) {
+                count = (count << 8) | (buffer[position + i] & 0xFF);
+            }
+
+            if (count < 0) {
+                throw new IOException("Invalid SenML pack length " + Long.toUnsignedString(count));
+            }
+
+            started = true;
+            indefinite = info == 31;
+            remaining = count;
+            position += 1 + argumentBytes;
+            return true;
+        }
+
+        private SenMLRecord needMoreInput() throws IOException {
+            if (inputEnded) {
+                throw new IOException("Unexpected end of SenML pack");
+            }
+
+            return null;
+        }
+
+        @Override
+        public void close() {
+            buffer = new byte[0];
+            position = 0;
+            limit = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package teamethernet.senmlapi;
+
+import java.util.function.Predicate;
+
+/**
+ * Selects records by resolved name, resolved time and the labels they contain, for
+ * {@link SenMLReader#withFilter(SenMLFilter)}. Names and times are resolved against the base name and
+ * base time as in RFC 8428 section 4.6, without converting relative times. Filters are immutable and
+ * combined with {@link #and(SenMLFilter)}.
+ */
+public final class SenMLFilter {
+
+    private static final SenMLFilter ALL = new SenMLFilter(null, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0);
+
+    private final Predicate<String> name;
+    private final double from;
+    private final double to;
+    private final long labels;
+
+    private SenMLFilter(final Predicate<String> name, final double from, final double to, final long labels) {
+        this.name = name;
+        this.from = from;
+        this.to = to;
+        this.labels = labels;
+    }
+
+    public static SenMLFilter all() {
+        return ALL;
+    }
+
+    public static SenMLFilter name(final Predicate<String> predicate) {
+        return new SenMLFilter(predicate, ALL.from, ALL.to, 0);
+    }
+
+    public static SenMLFilter namePrefix(final String prefix) {
+        return name(name -> name.startsWith(prefix));
+    }
+
+    /**
+     * Selects records whose resolved time is at least {@code from} and less than {@code to}.
+     */
+    public static SenMLFilter timeRange(final double from, final double to) {
+        return new SenMLFilter(null, from, to, 0);
+    }
+
+    /**
+     * Selects records that contain all the given labels.
+     */
+    public static SenMLFilter hasLabels(final Label<?>... labels) {
+        long mask = 0;
+
+        for (final Label<?> label : labels) {
+            mask |= 1L << label.getIndex();
+        }
+
+        return new SenMLFilter(null, ALL.from, ALL.to, mask);
+    }
+
+    public SenMLFilter and(final SenMLFilter other) {
+        final Predicate<String> combined = name == null ? other.name : other.name == null ? name : name.and(other.name);
+        return new SenMLFilter(combined, Math.max(from, other.from), Math.min(to, other.to), labels | other.labels);
+    }
+
+    boolean matchesName(final String resolvedName) {
+        return name == null || name.test(resolvedName);
+    }
+
+    boolean matchesTime(final double resolvedTime) {
+        return resolvedTime >= from && resolvedTime < to;
+    }
+
+    boolean matchesLabels(final long labelMask) {
+        return (labels & labelMask) == labels;
+    }
+
+    boolean matches(final String resolvedName, final double resolvedTime, final long labelMask) {
+        return matchesName(resolvedName) && matchesTime(resolvedTime) && matchesLabels(labelMask);
+    }
+
+}
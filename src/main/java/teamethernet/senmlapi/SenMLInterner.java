@@ -0,0 +1,171 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package teamethernet.senmlapi;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free dictionary of decoded strings that lets packs share one instance of names, units
+ * and other short strings that repeat across records and packs. Lookups hash the parser's decoded
+ * characters directly, so a hit returns the canonical string without allocating a new one.
+ * <p>
+ * The dictionary is a two-way set-associative table: every string can be in one of two neighbouring
+ * slots, and a new string replaces the less recently stored one when both are occupied, which keeps
+ * memory bounded by the capacity. Strings longer than the maximum length are never
+ * stored. One instance can be shared by any number of threads.
+ */
+public final class SenMLInterner {
+
+    private static final int DEFAULT_MAX_LENGTH = 64;
+
+    private final AtomicReferenceArray<String> table;
+    private final int mask;
+    private final int maxLength;
+    private final JsonNodeFactory nodeFactory = new InterningNodeFactory();
+
+    public SenMLInterner(final int capacity) {
+        this(capacity, DEFAULT_MAX_LENGTH);
+    }
+
+    public SenMLInterner(final int capacity, final int maxLength) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.table = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Node factory for decoding trees whose text nodes hold interned strings.
+     */
+    JsonNodeFactory getNodeFactory() {
+        return nodeFactory;
+    }
+
+    public String intern(final String value) {
+        if (value.length() > maxLength) {
+            return value;
+        }
+
+        final int slot = slot(value.hashCode());
+
+        for (int i = 0; i < 2; i++) {
+            final String cached = table.get(slot + i & mask);
+
+            if (value.equals(cached)) {
+                return cached;
+            }
+        }
+
+        store(slot, value);
+        return value;
+    }
+
+    public String intern(final char[] chars, final int offset, final int length) {
+        if (length > maxLength) {
+            return new String(chars, offset, length);
+        }
+
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+
+        final int slot = slot(hash);
+
+        for (int i = 0; i < 2; i++) {
+            final String cached = table.get(slot + i & mask);
+
+            if (cached != null && cached.hashCode() == hash && matches(cached, chars, offset, length)) {
+                return cached;
+            }
+        }
+
+        final String value = new String(chars, offset, length);
+        store(slot, value);
+        return value;
+    }
+
+    private int slot(final int hash) {
+        return (hash ^ hash >>> 16) & mask & ~1;
+    }
+
+    /**
+     * Stores the value in the first slot of its pair and moves the previous one to the second slot.
+     */
+    private void store(final int slot, final String value) {
+        final String previous = table.getAndSet(slot, value);
+
+        if (previous != null && mask > 0) {
+            table.set(slot + 1, previous);
+        }
+    }
+
+    private static boolean matches(final String cached, final char[] chars, final int offset, final int length) {
+        if (cached.length() != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (cached.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private class InterningNodeFactory extends JsonNodeFactory {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public TextNode textNode(final String text) {
+            return super.textNode(text == null ? null : intern(text));
+        }
+
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package teamethernet.senmlapi;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges several packs into one pack ordered by resolved time with a k-way merge over a heap of the
+ * current record of every source, so only one record per source is held in memory. Every source must
+ * already be in time order; records with equal times are written in source order. Since the sources
+ * have their own base fields, the merged records are written fully resolved, with absolute names,
+ * units, values and times.
+ */
+public final class SenMLMerger {
+
+    private SenMLMerger() {
+    }
+
+    /**
+     * Writes the records of all readers to the writer and returns the number of records written. The
+     * readers and the writer are not closed.
+     */
+    public static long merge(final List<SenMLReader> readers, final SenMLWriter writer) throws IOException {
+        return merge(readers, writer, false, 0);
+    }
+
+    /**
+     * Like {@link #merge(List, SenMLWriter)}, resolving relative times against {@code now} as
+     * {@link SenMLResolver#SenMLResolver(double)} does.
+     */
+    public static long merge(final List<SenMLReader> readers, final SenMLWriter writer, final double now)
+            throws IOException {
+        return merge(readers, writer, true, now);
+    }
+
+    private static long merge(final List<SenMLReader> readers, final SenMLWriter writer,
+                              final boolean resolveRelativeTime, final double now) throws IOException {
+        final PriorityQueue<Source> heap = new PriorityQueue<>(Math.max(1, readers.size()));
+
+        for (int i = 0; i < readers.size(); i++) {
+            final Source source = new Source(readers.get(i), i,
+                    resolveRelativeTime ? new SenMLResolver(now) : new SenMLResolver());
+            if (source.advance()) {
+                heap.add(source);
+            }
+        }
+
+        long written = 0;
+        Source source;
+
+        while ((source = heap.poll()) != null) {
+            writer.addRecord(source.current.toSenMLRecord());
+            written++;
+
+            if (source.advance()) {
+                heap.add(source);
+            }
+        }
+
+        return written;
+    }
+
+    private static final class Source implements Comparable<Source> {
+
+        private final SenMLReader reader;
+        private final int order;
+        private final SenMLResolver resolver;
+
+        private ResolvedRecord current;
+
+        Source(final SenMLReader reader, final int order, final SenMLResolver resolver) {
+            this.reader = reader;
+            this.order = order;
+            this.resolver = resolver;
+        }
+
+        boolean advance() throws IOException {
+            final SenMLRecord record = reader.next();
+            current = record == null ? null : resolver.resolve(record);
+            return current != null;
+        }
+
+        @Override
+        public int compareTo(final Source other) {
+            final int byTime = Double.compare(current.getTime(), other.current.getTime());
+            return byTime != 0 ? byTime : Integer.compare(order, other.order);
+        }
+
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import java.io.IOException;
+
+/**
+ * Listener for what encoding and decoding packs costs. Register an implementation with
+ * {@link SenMLAPI#setMetrics(SenMLMetrics)}; until then {@link #NONE} is used and no clocks are read
+ * and no counting is done. Implementations are called from every thread that encodes or decodes,
+ * and must be thread-safe and cheap. {@link SimpleSenMLMetrics} is a ready-made implementation.
+ */
+public interface SenMLMetrics {
+
+    SenMLMetrics NONE = new SenMLMetrics() {
+    };
+
+    enum Format {
+        JSON, CBOR
+    }
+
+    /**
+     * Called when a whole pack has been decoded. {@code bytes} is -1 when the size of the input is not known.
+     */
+    default void packDecoded(Format format, long bytes, int records, long nanos) {
+    }
+
+    /**
+     * Called when a whole pack has been encoded. {@code bytes} is -1 when the size of the output is not known.
+     */
+    default void packEncoded(Format format, long bytes, int records, long nanos) {
+    }
+
+    /**
+     * Called for every field of a decoded record that is not a SenML label.
+     */
+    default void unknownLabel(Format format, String label) {
+    }
+
+    default void decodeFailed(Format format, IOException cause) {
+    }
+
+}
@@ -0,0 +1,324 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pull-style reader that decodes one SenML record at a time straight from the Jackson token stream,
+ * without building a {@link com.fasterxml.jackson.databind.JsonNode} tree for the pack.
+ * {@link #next()} returns {@code null} once the end of the pack has been reached.
+ * <p>
+ * With a {@link SenMLFilter} set, records that do not match are skipped inside the token stream. Base
+ * fields of skipped records are carried over to the next returned record, so that the returned records
+ * still resolve to the same names and times as in the full pack. Name and time are always read, and a
+ * record is rejected against the base fields read so far. Once the base field that the rejection
+ * depends on has been read, the values of the remaining fields are skipped without being decoded.
+ * Before that, a later base field of the same record can still make it match, so the remaining values
+ * are only copied aside and decoded if it does. {@link SenMLWriter} and most encoders write the base
+ * fields first, so records rejected by name are mostly skipped outright.
+ */
+public class SenMLReader implements Closeable {
+
+    private final JsonParser parser;
+    private final LabelRegistry labels;
+    private final SenMLMetrics.Format format;
+
+    private final Map<Label, Label.Pair> pendingBase = new LinkedHashMap<>();
+
+    private SenMLFilter filter;
+    private SenMLInterner interner;
+    private String baseName = "";
+    private double baseTime;
+
+    private boolean started;
+    private boolean finished;
+
+    private SenMLReader(final JsonParser parser, final Class<? extends Formatter> type) {
+        this.parser = parser;
+        this.labels = LabelRegistry.of(type);
+        this.format = Metrics.format(type);
+    }
+
+    public static SenMLReader initJson(final InputStream inputStream) throws IOException {
+        return new SenMLReader(JsonFormatter.MAPPER.getFactory().createParser(inputStream), JsonFormatter.class);
+    }
+
+    public static SenMLReader initJson(final ByteBuffer buffer) throws IOException {
+        return new SenMLReader(createParser(JsonFormatter.MAPPER.getFactory(), buffer), JsonFormatter.class);
+    }
+
+    public static SenMLReader initCbor(final InputStream inputStream) throws IOException {
+        return new SenMLReader(CborFormatter.MAPPER.getFactory().createParser(inputStream), CborFormatter.class);
+    }
+
+    public static SenMLReader initCbor(final ByteBuffer buffer) throws IOException {
+        return new SenMLReader(createParser(CborFormatter.MAPPER.getFactory(), buffer), CborFormatter.class);
+    }
+
+    static JsonParser createParser(final JsonFactory factory, final ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            return factory.createParser(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            return factory.createParser(new ByteBufferInputStream(buffer.duplicate()));
+        }
+    }
+
+    /**
+     * Only returns the records that match {@code filter} from now on.
+     */
+    public SenMLReader withFilter(final SenMLFilter filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    /**
+     * Returns the strings of the records read from now on through {@code interner}. Strings that are
+     * already in it are looked up from the parser's characters without allocating a new string.
+     */
+    public SenMLReader withInterner(final SenMLInterner interner) {
+        this.interner = interner;
+        return this;
+    }
+
+    public SenMLRecord next() throws IOException {
+        try {
+            return readNext();
+        } catch (IOException e) {
+            Metrics.get().decodeFailed(format, e);
+            throw e;
+        }
+    }
+
+    private SenMLRecord readNext() throws IOException {
+        if (!started) {
+            started = true;
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "A SenML pack must start with an array");
+            }
+        }
+
+        while (!finished) {
+            final JsonToken token = parser.nextToken();
+
+            if (token == JsonToken.END_ARRAY) {
+                finished = true;
+            } else if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a SenML record but found " + token);
+            } else {
+                final SenMLRecord record = filter == null ? readRecord(parser, labels, format, interner) : readFilteredRecord();
+
+                if (record != null) {
+                    return record;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads the fields of the record whose {@link JsonToken#START_OBJECT} the parser is at.
+     */
+    static SenMLRecord readRecord(final JsonParser parser, final LabelRegistry labels, final SenMLMetrics.Format format,
+                                  final SenMLInterner interner) throws IOException {
+        final List<Label.Pair> pairs = new ArrayList<>();
+        JsonToken token;
+
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            final Label label = labels.getLabel(parser.getCurrentName());
+            parser.nextToken();
+
+            if (label == null) {
+                Metrics.get().unknownLabel(format, parser.getCurrentName());
+                parser.skipChildren();
+            } else {
+                pairs.add(readPair(parser, label, interner));
+            }
+        }
+
+        if (token != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Unexpected end of SenML record");
+        }
+
+        return new SenMLRecord(pairs);
+    }
+
+    private SenMLRecord readFilteredRecord() throws IOException {
+        final List<Label.Pair> pairs = new ArrayList<>();
+        final List<Label> deferredLabels = new ArrayList<>();
+        final List<TokenBuffer> deferredValues = new ArrayList<>();
+        String name = null;
+        double time = Double.NaN;
+        long seen = 0;
+        boolean rejected = false;
+        boolean definite = false;
+        JsonToken token;
+
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            final Label label = labels.getLabel(parser.getCurrentName());
+            parser.nextToken();
+
+            if (label == null) {
+                Metrics.get().unknownLabel(format, parser.getCurrentName());
+                parser.skipChildren();
+                continue;
+            }
+
+            seen |= 1L << label.getIndex();
+
+            if (rejected && label.getIndex() > Label.BASE_VERSION.getIndex() && label != Label.NAME && label != Label.TIME) {
+                if (definite) {
+                    parser.skipChildren();
+                } else {
+                    final TokenBuffer value = new TokenBuffer(parser, null);
+                    value.copyCurrentStructure(parser);
+                    pairs.add(null);
+                    deferredLabels.add(label);
+                    deferredValues.add(value);
+                }
+                continue;
+            }
+
+            final Label.Pair pair = readPair(parser, label, interner);
+
+            if (label.getIndex() <= Label.BASE_VERSION.getIndex()) {
+                if (label == Label.BASE_NAME) {
+                    baseName = (String) pair.getValue();
+                } else if (label == Label.BASE_TIME) {
+                    baseTime = (Double) pair.getValue();
+                }
+                pendingBase.put(label, pair);
+            } else {
+                pairs.add(pair);
+
+                if (label == Label.NAME) {
+                    name = (String) pair.getValue();
+                } else if (label == Label.TIME) {
+                    time = (Double) pair.getValue();
+                }
+            }
+
+            if (label == Label.NAME || label == Label.TIME || label == Label.BASE_NAME || label == Label.BASE_TIME) {
+                final boolean nameRejected = name != null && !filter.matchesName(baseName + name);
+                final boolean timeRejected = !Double.isNaN(time) && !filter.matchesTime(baseTime + time);
+
+                rejected = nameRejected || timeRejected;
+                definite = nameRejected && (seen & 1L << Label.BASE_NAME.getIndex()) != 0
+                        || timeRejected && (seen & 1L << Label.BASE_TIME.getIndex()) != 0;
+            }
+        }
+
+        if (token != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Unexpected end of SenML record");
+        }
+
+        final String resolvedName = name == null ? baseName : baseName + name;
+        final double resolvedTime = Double.isNaN(time) ? baseTime : baseTime + time;
+
+        if (!filter.matches(resolvedName, resolvedTime, seen)) {
+            return null;
+        }
+
+        final List<Label.Pair> record = new ArrayList<>(pendingBase.values());
+        int next = 0;
+        for (final Label.Pair pair : pairs) {
+            if (pair != null) {
+                record.add(pair);
+            } else {
+                record.add(readDeferred(deferredLabels.get(next), deferredValues.get(next)));
+                next++;
+            }
+        }
+        pendingBase.clear();
+
+        return new SenMLRecord(record);
+    }
+
+    /**
+     * Decodes a value that was copied aside while its record was rejected.
+     */
+    private Label.Pair readDeferred(final Label label, final TokenBuffer value) throws IOException {
+        try (JsonParser deferredParser = value.asParser()) {
+            deferredParser.nextToken();
+            return readPair(deferredParser, label, interner);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static Label.Pair readPair(final JsonParser parser, final Label label, final SenMLInterner interner) throws IOException {
+        switch (label.getValueType()) {
+            case STRING:
+                if (label == Label.DATA_VALUE && parser.getCurrentToken() == JsonToken.VALUE_EMBEDDED_OBJECT) {
+                    return Label.DATA_VALUE.attachData(parser.getBinaryValue());
+                }
+                if (interner != null && parser.getCurrentToken() == JsonToken.VALUE_STRING) {
+                    return label.attachValue(interner.intern(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+                }
+                return label.attachValue(parser.getText());
+            case DOUBLE:
+                return label.attachValue(parser.getDoubleValue());
+            case INTEGER:
+                return label.attachValue(parser.getIntValue());
+            case BOOLEAN:
+                return label.attachValue(parser.getBooleanValue());
+            default:
+                throw new UnsupportedOperationException(
+                        label.getClassType() + " is not supported. Use String, Double, Integer or Boolean");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public final class SenMLRecord {
+
+    private final List<Label.Pair> pairs;
+
+    SenMLRecord(final List<Label.Pair> pairs) {
+        this.pairs = Collections.unmodifiableList(pairs);
+    }
+
+    public static SenMLRecord of(final Label.Pair... pairs) {
+        return new SenMLRecord(new ArrayList<>(Arrays.asList(pairs)));
+    }
+
+    public List<Label.Pair> getPairs() {
+        return pairs;
+    }
+
+    public List<Label> getLabels() {
+        final List<Label> labels = new ArrayList<>(pairs.size());
+
+        for (final Label.Pair pair : pairs) {
+            labels.add(pair.getLabel());
+        }
+
+        return labels;
+    }
+
+    public boolean hasLabel(final Label<?> label) {
+        for (final Label.Pair pair : pairs) {
+            if (pair.getLabel() == label) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public <S> S getValue(final Label<S> label) {
+        for (final Label.Pair pair : pairs) {
+            if (pair.getLabel() == label) {
+                return label.getClassType().cast(pair.getValue());
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the data value as bytes, decoding it from base64url if it was attached as text, or
+     * {@code null} if the record has no data value.
+     */
+    public byte[] getData() {
+        for (final Label.Pair pair : pairs) {
+            if (pair.getLabel() == Label.DATA_VALUE) {
+                return pair.getData() != null ? pair.getData() : DataValues.decode((String) pair.getValue());
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("{");
+
+        for (final Label.Pair pair : pairs) {
+            if (builder.length() > 1) {
+                builder.append(',');
+            }
+            builder.append(LabelRegistry.JSON.getFormattedLabel(pair.getLabel())).append('=').append(pair.getValue());
+        }
+
+        return builder.append('}').toString();
+    }
+
+}
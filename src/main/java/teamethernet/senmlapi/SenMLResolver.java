@@ -0,0 +1,155 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+/**
+ * Applies the base fields of a pack to its records in a single pass. Records must be given to
+ * {@link #resolve(SenMLRecord)} in pack order, since base fields apply to the record they occur in
+ * and every record after it.
+ */
+public class SenMLResolver {
+
+    private static final double RELATIVE_TIME_LIMIT = 268435456; // 2^28, RFC 8428 section 4.5.3
+
+    private final boolean resolveRelativeTime;
+    private final double now;
+
+    private String baseName = "";
+    private double baseTime;
+    private String baseUnit;
+    private double baseValue;
+    private double baseSum;
+
+    public SenMLResolver() {
+        this.resolveRelativeTime = false;
+        this.now = 0;
+    }
+
+    public SenMLResolver(final double now) {
+        this.resolveRelativeTime = true;
+        this.now = now;
+    }
+
+    public ResolvedRecord resolve(final SenMLRecord record) {
+        String name = null;
+        String unit = null;
+        double time = 0;
+        boolean hasValue = false;
+        double value = 0;
+        String stringValue = null;
+        Boolean booleanValue = null;
+        String dataValue = null;
+        byte[] data = null;
+        boolean hasSum = false;
+        double sum = 0;
+        boolean hasUpdateTime = false;
+        double updateTime = 0;
+
+        for (final Label.Pair pair : record.getPairs()) {
+            final Label label = pair.getLabel();
+
+            if (label == Label.DATA_VALUE) {
+                data = pair.getData();
+                dataValue = data == null ? (String) pair.getValue() : null;
+                continue;
+            }
+
+            final Object fieldValue = pair.getValue();
+
+            if (label == Label.BASE_NAME) {
+                baseName = (String) fieldValue;
+            } else if (label == Label.BASE_TIME) {
+                baseTime = (Double) fieldValue;
+            } else if (label == Label.BASE_UNIT) {
+                baseUnit = (String) fieldValue;
+            } else if (label == Label.BASE_VALUE) {
+                baseValue = (Double) fieldValue;
+            } else if (label == Label.BASE_SUM) {
+                baseSum = (Double) fieldValue;
+            } else if (label == Label.NAME) {
+                name = (String) fieldValue;
+            } else if (label == Label.UNIT) {
+                unit = (String) fieldValue;
+            } else if (label == Label.TIME) {
+                time = (Double) fieldValue;
+            } else if (label == Label.VALUE) {
+                hasValue = true;
+                value = (Double) fieldValue;
+            } else if (label == Label.STRING_VALUE) {
+                stringValue = (String) fieldValue;
+            } else if (label == Label.BOOLEAN_VALUE) {
+                booleanValue = (Boolean) fieldValue;
+            } else if (label == Label.SUM) {
+                hasSum = true;
+                sum = (Double) fieldValue;
+            } else if (label == Label.UPDATE_TIME) {
+                hasUpdateTime = true;
+                updateTime = (Double) fieldValue;
+            }
+        }
+
+        return new ResolvedRecord(
+                name == null ? baseName : baseName + name,
+                unit == null ? baseUnit : unit,
+                resolveTime(baseTime + time),
+                hasValue, hasValue ? baseValue + value : 0,
+                stringValue, booleanValue, dataValue, data,
+                hasSum, hasSum ? baseSum + sum : 0,
+                hasUpdateTime, updateTime);
+    }
+
+    private double resolveTime(final double time) {
+        return resolveRelativeTime && time < RELATIVE_TIME_LIMIT ? now + time : time;
+    }
+
+    /**
+     * Returns whether any base field currently changes how records resolve.
+     */
+    boolean hasBaseFields() {
+        return !baseName.isEmpty() || baseTime != 0 || baseUnit != null || baseValue != 0 || baseSum != 0;
+    }
+
+    public void reset() {
+        baseName = "";
+        baseTime = 0;
+        baseUnit = null;
+        baseValue = 0;
+        baseSum = 0;
+    }
+
+}
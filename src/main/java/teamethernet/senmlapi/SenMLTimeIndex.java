@@ -0,0 +1,203 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package teamethernet.senmlapi;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index of the records of a pack sorted by resolved time, for repeated time window queries. Times are
+ * kept in a primitive array in ascending order together with the permutation that maps them back to
+ * record indices, so {@link #range(double, double)} is two binary searches. Records with equal times
+ * keep their pack order.
+ */
+public class SenMLTimeIndex {
+
+    private final List<ResolvedRecord> records;
+    private final double[] times;
+    private final int[] order;
+
+    private SenMLTimeIndex(final List<ResolvedRecord> records) {
+        this.records = records;
+        this.times = new double[records.size()];
+        this.order = new int[records.size()];
+
+        boolean sorted = true;
+        for (int i = 0; i < times.length; i++) {
+            times[i] = records.get(i).getTime();
+            order[i] = i;
+            sorted &= i == 0 || times[i - 1] <= times[i];
+        }
+
+        if (!sorted) {
+            sort(times, order);
+        }
+    }
+
+    /**
+     * Indexes records that were already resolved in pack order, for example with a
+     * {@link SenMLResolver#SenMLResolver(double)} that resolves relative times.
+     */
+    public static SenMLTimeIndex of(final List<ResolvedRecord> resolvedRecords) {
+        return new SenMLTimeIndex(new ArrayList<>(resolvedRecords));
+    }
+
+    public static SenMLTimeIndex of(final SenMLAPI<?> senMLAPI) {
+        return new SenMLTimeIndex(senMLAPI.getResolvedRecords());
+    }
+
+    public static SenMLTimeIndex of(final LazySenMLPack<?> pack) throws IOException {
+        final SenMLResolver resolver = new SenMLResolver();
+        final List<ResolvedRecord> resolvedRecords = new ArrayList<>(pack.size());
+
+        for (int i = 0; i < pack.size(); i++) {
+            resolvedRecords.add(resolver.resolve(pack.getSenMLRecord(i)));
+        }
+
+        return new SenMLTimeIndex(resolvedRecords);
+    }
+
+    public static SenMLTimeIndex read(final SenMLReader reader) throws IOException {
+        final SenMLResolver resolver = new SenMLResolver();
+        final List<ResolvedRecord> resolvedRecords = new ArrayList<>();
+        SenMLRecord record;
+
+        while ((record = reader.next()) != null) {
+            resolvedRecords.add(resolver.resolve(record));
+        }
+
+        return new SenMLTimeIndex(resolvedRecords);
+    }
+
+    public int size() {
+        return times.length;
+    }
+
+    public double getTime(final int recordIndex) {
+        return records.get(recordIndex).getTime();
+    }
+
+    public ResolvedRecord getResolvedRecord(final int recordIndex) {
+        return records.get(recordIndex);
+    }
+
+    /**
+     * Returns the number of records whose resolved time is at least {@code from} and less than {@code to}.
+     */
+    public int count(final double from, final double to) {
+        return Math.max(0, lowerBound(to) - lowerBound(from));
+    }
+
+    /**
+     * Returns the indices of the records whose resolved time is at least {@code from} and less than
+     * {@code to}, in time order.
+     */
+    public int[] range(final double from, final double to) {
+        final int start = lowerBound(from);
+        return Arrays.copyOfRange(order, start, Math.max(start, lowerBound(to)));
+    }
+
+    /**
+     * Returns the resolved records whose time is at least {@code from} and less than {@code to}, in time
+     * order.
+     */
+    public List<ResolvedRecord> getResolvedRecords(final double from, final double to) {
+        final int start = lowerBound(from);
+        final int end = lowerBound(to);
+        final List<ResolvedRecord> resolvedRecords = new ArrayList<>(Math.max(0, end - start));
+
+        for (int i = start; i < end; i++) {
+            resolvedRecords.add(records.get(order[i]));
+        }
+
+        return resolvedRecords;
+    }
+
+    private int lowerBound(final double time) {
+        int low = 0;
+        int high = times.length;
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (times[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    private static void sort(final double[] times, final int[] order) {
+        final double[] timeBuffer = times.clone();
+        final int[] orderBuffer = order.clone();
+        mergeSort(timeBuffer, orderBuffer, times, order, 0, times.length);
+    }
+
+    /**
+     * Stable merge sort of {@code times} and {@code order} from the source into the target arrays, which
+     * start out as copies of each other.
+     */
+    private static void mergeSort(final double[] sourceTimes, final int[] sourceOrder,
+                                  final double[] targetTimes, final int[] targetOrder, final int from, final int to) {
+        if (to - from < 2) {
+            return;
+        }
+
+        final int mid = (from + to) >>> 1;
+        mergeSort(targetTimes, targetOrder, sourceTimes, sourceOrder, from, mid);
+        mergeSort(targetTimes, targetOrder, sourceTimes, sourceOrder, mid, to);
+
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || left < mid && sourceTimes[left] <= sourceTimes[right]) {
+                targetTimes[i] = sourceTimes[left];
+                targetOrder[i] = sourceOrder[left++];
+            } else {
+                targetTimes[i] = sourceTimes[right];
+                targetOrder[i] = sourceOrder[right++];
+            }
+        }
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Converts SenML packs between JSON and CBOR in a single pass over the token stream, without building
+ * a tree of the pack. Record labels are remapped on the fly, CBOR output uses the integer keys of
+ * RFC 8428 like {@link SenMLWriter}, and labels that are not known are copied unchanged. Data values
+ * are converted between CBOR byte strings and base64url text.
+ * The input stream is read to the end of the pack and neither stream is closed.
+ */
+public final class SenMLTranscoder {
+
+    private static final int PACK_DEPTH = 1;
+    private static final int RECORD_DEPTH = 2;
+
+    private final JsonFactory source;
+    private final JsonFactory target;
+    private final LabelRegistry sourceLabels;
+    private final LabelRegistry targetLabels;
+    private final boolean integerKeys;
+
+    private SenMLTranscoder(final Class<? extends Formatter> from, final Class<? extends Formatter> to) {
+        this.source = (from == CborFormatter.class ? CborFormatter.MAPPER : JsonFormatter.MAPPER).getFactory();
+        this.target = (to == CborFormatter.class ? CborFormatter.MAPPER : JsonFormatter.MAPPER).getFactory();
+        this.sourceLabels = LabelRegistry.of(from);
+        this.targetLabels = LabelRegistry.of(to);
+        this.integerKeys = to == CborFormatter.class;
+    }
+
+    public static SenMLTranscoder jsonToCbor() {
+        return new SenMLTranscoder(JsonFormatter.class, CborFormatter.class);
+    }
+
+    public static SenMLTranscoder cborToJson() {
+        return new SenMLTranscoder(CborFormatter.class, JsonFormatter.class);
+    }
+
+    public byte[] transcode(final byte[] buffer) throws IOException {
+        final ByteArrayBuilder outputStream = new ByteArrayBuilder();
+
+        try (JsonParser parser = source.createParser(buffer)) {
+            transcode(parser, outputStream);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    public void transcode(final InputStream inputStream, final OutputStream outputStream) throws IOException {
+        try (JsonParser parser = source.createParser(inputStream)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            transcode(parser, outputStream);
+        }
+    }
+
+    private void transcode(final JsonParser parser, final OutputStream outputStream) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "A SenML pack must start with an array");
+        }
+
+        try (JsonGenerator generator = target.createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+
+            int depth = PACK_DEPTH;
+            Label field = null;
+
+            while (depth > 0) {
+                final JsonToken token = parser.nextToken();
+
+                if (token == null) {
+                    throw new JsonParseException(parser, "Unexpected end of SenML pack");
+                } else if (token == JsonToken.FIELD_NAME && depth == RECORD_DEPTH) {
+                    field = sourceLabels.getLabel(parser.getCurrentName());
+                    writeFieldName(generator, field, parser.getCurrentName());
+                    continue;
+                } else if (field == Label.DATA_VALUE && depth == RECORD_DEPTH) {
+                    if (token == JsonToken.VALUE_STRING && integerKeys) {
+                        generator.writeBinary(decodeData(parser));
+                        continue;
+                    } else if (token == JsonToken.VALUE_EMBEDDED_OBJECT) {
+                        final byte[] data = parser.getBinaryValue();
+                        generator.writeBinary(DataValues.BASE64URL, data, 0, data.length);
+                        continue;
+                    }
+                }
+
+                if (token.isStructStart()) {
+                    depth++;
+                } else if (token.isStructEnd()) {
+                    depth--;
+                }
+
+                generator.copyCurrentEvent(parser);
+            }
+        }
+    }
+
+    private static byte[] decodeData(final JsonParser parser) throws IOException {
+        try {
+            return DataValues.decode(parser.getText());
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(parser, "Data value is not base64url: " + e.getMessage());
+        }
+    }
+
+    private void writeFieldName(final JsonGenerator generator, final Label label, final String name) throws IOException {
+        if (label == null) {
+            generator.writeFieldName(name);
+        } else if (integerKeys) {
+            generator.writeFieldId(label.getCborKey());
+        } else {
+            generator.writeFieldName(targetLabels.getFormattedLabel(label));
+        }
+    }
+
+}
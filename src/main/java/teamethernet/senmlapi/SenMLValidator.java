@@ -0,0 +1,229 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package teamethernet.senmlapi;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Checks a pack against RFC 8428 in a single pass over the token stream, without building a tree,
+ * and throws a {@link JsonParseException} pointing at the first token that breaks a rule:
+ * <ul>
+ * <li>the pack is an array of records, and every record is a map</li>
+ * <li>every label has a value of its type, and a record has each label at most once</li>
+ * <li>a record has at most one of {@code v}, {@code vs}, {@code vb} and {@code vd}</li>
+ * <li>data values are base64url text in JSON, or byte strings or base64url text in CBOR</li>
+ * <li>labels ending in {@code _} must be understood, so none are accepted (section 4.4)</li>
+ * <li>every resolved name is non-empty, starts with a letter or digit and only contains
+ * {@code A-Z a-z 0-9 - : . / _} (section 4.5.1)</li>
+ * </ul>
+ * Other unknown labels are skipped.
+ */
+public final class SenMLValidator {
+
+    private static final long VALUE_LABELS = mask(Label.VALUE) | mask(Label.STRING_VALUE)
+            | mask(Label.BOOLEAN_VALUE) | mask(Label.DATA_VALUE);
+
+    private final JsonParser parser;
+    private final LabelRegistry labels;
+
+    private String baseName = "";
+
+    private SenMLValidator(final JsonParser parser, final Class<? extends Formatter> type) {
+        this.parser = parser;
+        this.labels = LabelRegistry.of(type);
+    }
+
+    public static void validateJson(final byte[] buffer) throws IOException {
+        validate(JsonFormatter.MAPPER.getFactory(), buffer, JsonFormatter.class);
+    }
+
+    public static void validateJson(final InputStream inputStream) throws IOException {
+        validate(JsonFormatter.MAPPER.getFactory().createParser(inputStream), JsonFormatter.class);
+    }
+
+    public static void validateCbor(final byte[] buffer) throws IOException {
+        validate(CborFormatter.MAPPER.getFactory(), buffer, CborFormatter.class);
+    }
+
+    public static void validateCbor(final InputStream inputStream) throws IOException {
+        validate(CborFormatter.MAPPER.getFactory().createParser(inputStream), CborFormatter.class);
+    }
+
+    private static void validate(final JsonFactory factory, final byte[] buffer, final Class<? extends Formatter> type) throws IOException {
+        validate(factory.createParser(buffer), type);
+    }
+
+    private static void validate(final JsonParser parser, final Class<? extends Formatter> type) throws IOException {
+        try {
+            new SenMLValidator(parser, type).validatePack();
+        } catch (JsonParseException e) {
+            Metrics.get().decodeFailed(Metrics.format(type), e);
+            throw e;
+        } finally {
+            parser.close();
+        }
+    }
+
+    private void validatePack() throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "A SenML pack must start with an array");
+        }
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a SenML record but found " + token);
+            }
+            validateRecord();
+        }
+    }
+
+    private void validateRecord() throws IOException {
+        long seen = 0;
+        String name = null;
+        JsonToken token;
+
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.getCurrentName();
+            final Label label = labels.getLabel(fieldName);
+            final JsonToken value = parser.nextToken();
+
+            if (label == null) {
+                if (fieldName.endsWith("_")) {
+                    throw new JsonParseException(parser, "Unknown must-understand label " + fieldName);
+                }
+                parser.skipChildren();
+                continue;
+            }
+
+            final long labelMask = mask(label);
+            if ((seen & labelMask) != 0) {
+                throw new JsonParseException(parser, "Label " + fieldName + " occurs more than once in a record");
+            } else if ((labelMask & VALUE_LABELS) != 0 && (seen & VALUE_LABELS) != 0) {
+                throw new JsonParseException(parser, "A record must not have more than one of v, vs, vb and vd");
+            }
+            seen |= labelMask;
+
+            validateValue(label, fieldName, value);
+
+            if (label == Label.BASE_NAME) {
+                baseName = parser.getText();
+            } else if (label == Label.NAME) {
+                name = parser.getText();
+            }
+        }
+
+        if (token != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Unexpected end of SenML record");
+        }
+
+        validateName(name == null ? baseName : baseName + name);
+    }
+
+    private void validateValue(final Label label, final String fieldName, final JsonToken value) throws IOException {
+        final boolean valid;
+
+        if (label == Label.DATA_VALUE) {
+            valid = value == JsonToken.VALUE_EMBEDDED_OBJECT && labels == LabelRegistry.CBOR
+                    || value == JsonToken.VALUE_STRING && isBase64Url(parser.getText());
+        } else {
+            switch (label.getValueType()) {
+                case STRING:
+                    valid = value == JsonToken.VALUE_STRING;
+                    break;
+                case DOUBLE:
+                    valid = value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT;
+                    break;
+                case INTEGER:
+                    valid = value == JsonToken.VALUE_NUMBER_INT;
+                    break;
+                case BOOLEAN:
+                    valid = value == JsonToken.VALUE_TRUE || value == JsonToken.VALUE_FALSE;
+                    break;
+                default:
+                    valid = false;
+            }
+        }
+
+        if (!valid) {
+            throw new JsonParseException(parser, "Invalid value for label " + fieldName + ": " + value);
+        }
+    }
+
+    private void validateName(final String name) throws IOException {
+        if (name.isEmpty()) {
+            throw new JsonParseException(parser, "A SenML record must have a name");
+        } else if (!isLetterOrDigit(name.charAt(0))) {
+            throw new JsonParseException(parser, "A SenML name must start with a letter or digit: " + name);
+        }
+
+        for (int i = 1; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (!isLetterOrDigit(c) && c != '-' && c != ':' && c != '.' && c != '/' && c != '_') {
+                throw new JsonParseException(parser, "Invalid character '" + c + "' in SenML name: " + name);
+            }
+        }
+    }
+
+    private static boolean isLetterOrDigit(final char c) {
+        return c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9';
+    }
+
+    private static boolean isBase64Url(final String text) {
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (DataValues.BASE64URL.decodeBase64Char(c) < 0 && c != '=') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static long mask(final Label label) {
+        return 1L << label.getIndex();
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes a SenML pack record by record straight to an output through a Jackson generator,
+ * without keeping the pack in memory. The pack is terminated when the writer is closed.
+ */
+public class SenMLWriter implements Closeable, Flushable {
+
+    private final JsonGenerator generator;
+    private final LabelRegistry labels;
+    private final boolean cbor;
+
+    private SenMLWriter(final JsonGenerator generator, final Class<? extends Formatter> type) throws IOException {
+        this.generator = generator;
+        this.labels = LabelRegistry.of(type);
+        this.cbor = type == CborFormatter.class;
+        generator.writeStartArray();
+    }
+
+    public static SenMLWriter initJson(final OutputStream outputStream) throws IOException {
+        return new SenMLWriter(JsonFormatter.MAPPER.getFactory().createGenerator(outputStream), JsonFormatter.class);
+    }
+
+    public static SenMLWriter initJson(final WritableByteChannel channel) throws IOException {
+        return initJson(Channels.newOutputStream(channel));
+    }
+
+    public static SenMLWriter initCbor(final OutputStream outputStream) throws IOException {
+        return new SenMLWriter(CborFormatter.MAPPER.getFactory().createGenerator(outputStream), CborFormatter.class);
+    }
+
+    public static SenMLWriter initCbor(final WritableByteChannel channel) throws IOException {
+        return initCbor(Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Writer for a stream that the caller owns: closing the writer ends the pack and flushes, but leaves
+     * the stream open.
+     */
+    static SenMLWriter init(final Class<? extends Formatter> type, final OutputStream outputStream) throws IOException {
+        final SenMLWriter writer = type == CborFormatter.class ? initCbor(outputStream) : initJson(outputStream);
+        writer.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return writer;
+    }
+
+    public void addRecord(final SenMLRecord record) throws IOException {
+        generator.writeStartObject();
+
+        for (final Label.Pair pair : record.getPairs()) {
+            writePair(pair);
+        }
+
+        generator.writeEndObject();
+    }
+
+    public void addRecord(final Label.Pair... pairs) throws IOException {
+        generator.writeStartObject();
+
+        for (final Label.Pair pair : pairs) {
+            writePair(pair);
+        }
+
+        generator.writeEndObject();
+    }
+
+    private void writePair(final Label.Pair pair) throws IOException {
+        if (cbor) {
+            generator.writeFieldId(pair.getLabel().getCborKey());
+        } else {
+            generator.writeFieldName(labels.getFormattedLabel(pair.getLabel()));
+        }
+
+        switch (pair.getLabel().getValueType()) {
+            case STRING:
+                if (pair.getData() != null) {
+                    generator.writeBinary(DataValues.BASE64URL, pair.getData(), 0, pair.getData().length);
+                } else {
+                    generator.writeString((String) pair.getValue());
+                }
+                break;
+            case DOUBLE:
+                generator.writeNumber((Double) pair.getValue());
+                break;
+            case INTEGER:
+                generator.writeNumber((Integer) pair.getValue());
+                break;
+            case BOOLEAN:
+                generator.writeBoolean((Boolean) pair.getValue());
+                break;
+            default:
+                throw new UnsupportedOperationException(
+                        pair.getLabel().getClassType() + " is not supported. Use String, Double, Integer or Boolean");
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!generator.isClosed()) {
+            generator.writeEndArray();
+            generator.close();
+        }
+    }
+
+}
@@ -0,0 +1,236 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package teamethernet.senmlapi;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link SenMLMetrics} that keeps lock-free counters and latency histograms per format.
+ */
+public class SimpleSenMLMetrics implements SenMLMetrics {
+
+    private final Map<Format, Counters> counters = new EnumMap<>(Format.class);
+
+    public SimpleSenMLMetrics() {
+        for (final Format format : Format.values()) {
+            counters.put(format, new Counters());
+        }
+    }
+
+    public Counters get(final Format format) {
+        return counters.get(format);
+    }
+
+    @Override
+    public void packDecoded(final Format format, final long bytes, final int records, final long nanos) {
+        final Counters formatCounters = counters.get(format);
+        formatCounters.packsDecoded.increment();
+        formatCounters.recordsDecoded.add(records);
+        if (bytes > 0) {
+            formatCounters.bytesDecoded.add(bytes);
+        }
+        formatCounters.decodeLatency.record(nanos);
+    }
+
+    @Override
+    public void packEncoded(final Format format, final long bytes, final int records, final long nanos) {
+        final Counters formatCounters = counters.get(format);
+        formatCounters.packsEncoded.increment();
+        formatCounters.recordsEncoded.add(records);
+        if (bytes > 0) {
+            formatCounters.bytesEncoded.add(bytes);
+        }
+        formatCounters.encodeLatency.record(nanos);
+    }
+
+    @Override
+    public void unknownLabel(final Format format, final String label) {
+        counters.get(format).unknownLabels.increment();
+    }
+
+    @Override
+    public void decodeFailed(final Format format, final IOException cause) {
+        counters.get(format).decodeFailures.increment();
+    }
+
+    public static final class Counters {
+
+        private final LongAdder packsDecoded = new LongAdder();
+        private final LongAdder packsEncoded = new LongAdder();
+        private final LongAdder recordsDecoded = new LongAdder();
+        private final LongAdder recordsEncoded = new LongAdder();
+        private final LongAdder bytesDecoded = new LongAdder();
+        private final LongAdder bytesEncoded = new LongAdder();
+        private final LongAdder unknownLabels = new LongAdder();
+        private final LongAdder decodeFailures = new LongAdder();
+        private final Histogram decodeLatency = new Histogram();
+        private final Histogram encodeLatency = new Histogram();
+
+        private Counters() {
+        }
+
+        public long getPacksDecoded() {
+            return packsDecoded.sum();
+        }
+
+        public long getPacksEncoded() {
+            return packsEncoded.sum();
+        }
+
+        public long getRecordsDecoded() {
+            return recordsDecoded.sum();
+        }
+
+        public long getRecordsEncoded() {
+            return recordsEncoded.sum();
+        }
+
+        public long getBytesDecoded() {
+            return bytesDecoded.sum();
+        }
+
+        public long getBytesEncoded() {
+            return bytesEncoded.sum();
+        }
+
+        public long getUnknownLabels() {
+            return unknownLabels.sum();
+        }
+
+        public long getDecodeFailures() {
+            return decodeFailures.sum();
+        }
+
+        public Histogram getDecodeLatency() {
+            return decodeLatency;
+        }
+
+        public Histogram getEncodeLatency() {
+            return encodeLatency;
+        }
+
+    }
+
+    /**
+     * Histogram of non-negative values in the style of HdrHistogram: every power of two is split into
+     * {@value #SUB_BUCKETS} linear buckets, so a percentile is reported with at most 12.5% relative error
+     * using a fixed, small array of counters.
+     */
+    public static final class Histogram {
+
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        private Histogram() {
+        }
+
+        void record(final long value) {
+            final long clamped = Math.max(0, value);
+            counts.incrementAndGet(bucket(clamped));
+            count.increment();
+            max.accumulate(clamped);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * Returns an upper bound of the value below which the given percentage of the values fall,
+         * or 0 if nothing was recorded.
+         */
+        public long getPercentile(final double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+            }
+
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                total += counts.get(i);
+            }
+
+            final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), getMax());
+                }
+            }
+
+            return 0;
+        }
+
+        static int bucket(final long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+
+            final int exponent = 63 - Long.numberOfLeadingZeros(value);
+            final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        static long upperBound(final int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+
+            final int shift = bucket / SUB_BUCKETS - 1;
+            final long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+            return lower + (1L << shift) - 1;
+        }
+
+    }
+
+}
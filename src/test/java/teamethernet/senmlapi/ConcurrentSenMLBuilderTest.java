@@ -0,0 +1,187 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentSenMLBuilderTest {
+
+    private static final int PRODUCERS = 8;
+    private static final int RECORDS_PER_PRODUCER = 1000;
+
+    @Test
+    public void empty() throws IOException {
+        assertArrayEquals("[]".getBytes(), ConcurrentSenMLBuilder.initJson().getSenML());
+    }
+
+    @Test
+    public void keepsRecordsOfEachProducerInOrder() throws Exception {
+        final ConcurrentSenMLBuilder builder = ConcurrentSenMLBuilder.initCbor();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+
+        for (int p = 0; p < PRODUCERS; p++) {
+            final String name = "producer" + p;
+            final Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < RECORDS_PER_PRODUCER; i++) {
+                    builder.addRecord(Label.NAME.attachValue(name), Label.VALUE.attachValue((double) i));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        start.countDown();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        final Map<String, Double> lastValues = new HashMap<>();
+        int count = 0;
+
+        try (final SenMLReader reader = SenMLReader.initCbor(ByteBuffer.wrap(builder.getSenML()))) {
+            SenMLRecord record;
+            while ((record = reader.next()) != null) {
+                final Double previous = lastValues.put(record.getValue(Label.NAME), record.getValue(Label.VALUE));
+                assertEquals(previous == null ? 0.0 : previous + 1, record.getValue(Label.VALUE), 0.0);
+                count++;
+            }
+        }
+
+        assertEquals(PRODUCERS * RECORDS_PER_PRODUCER, count);
+        assertEquals(PRODUCERS, lastValues.size());
+        assertArrayEquals(new byte[]{(byte) 0x9F, (byte) 0xFF}, builder.getSenML());
+    }
+
+    @Test
+    public void baseFieldsOnlyApplyToTheirProducer() throws Exception {
+        final ConcurrentSenMLBuilder builder = ConcurrentSenMLBuilder.initJson();
+
+        final Thread first = new Thread(() -> {
+            builder.addRecord(Label.BASE_NAME.attachValue("a/"), Label.NAME.attachValue("x"), Label.VALUE.attachValue(1.0));
+            builder.addRecord(Label.NAME.attachValue("z"), Label.VALUE.attachValue(3.0));
+        });
+        first.start();
+        first.join();
+
+        final Thread second = new Thread(() -> builder.addRecord(Label.NAME.attachValue("y"), Label.VALUE.attachValue(2.0)));
+        second.start();
+        second.join();
+
+        final Map<String, Double> values = new HashMap<>();
+        final SenMLResolver resolver = new SenMLResolver();
+
+        try (final SenMLReader reader = SenMLReader.initJson(ByteBuffer.wrap(builder.getSenML()))) {
+            SenMLRecord record;
+            while ((record = reader.next()) != null) {
+                final ResolvedRecord resolved = resolver.resolve(record);
+                values.put(resolved.getName(), resolved.getValue());
+            }
+        }
+
+        final Map<String, Double> expected = new HashMap<>();
+        expected.put("a/x", 1.0);
+        expected.put("a/z", 3.0);
+        expected.put("y", 2.0);
+        assertEquals(expected, values);
+    }
+
+    @Test
+    public void writesRecordsWithoutBaseFieldsUnchanged() throws IOException {
+        final ConcurrentSenMLBuilder builder = ConcurrentSenMLBuilder.initJson();
+        builder.addRecord(Label.NAME.attachValue("x"), Label.VALUE.attachValue(1.0));
+
+        assertEquals("[{\"n\":\"x\",\"v\":1.0}]", new String(builder.getSenML()));
+    }
+
+    @Test
+    public void forgetsProducersThatStoppedAddingRecords() throws Exception {
+        final ConcurrentSenMLBuilder builder = ConcurrentSenMLBuilder.initJson();
+
+        for (int i = 0; i < 100; i++) {
+            final Thread thread = new Thread(() -> builder.addRecord(Label.NAME.attachValue("x")));
+            thread.start();
+            thread.join();
+        }
+        assertEquals(100, builder.getProducerCount());
+
+        builder.getSenML();
+        assertEquals(0, builder.getProducerCount());
+
+        builder.addRecord(Label.NAME.attachValue("y"));
+        builder.addRecord(Label.NAME.attachValue("z"));
+        assertEquals(1, builder.getProducerCount());
+        assertEquals("[{\"n\":\"y\"},{\"n\":\"z\"}]", new String(builder.getSenML()));
+    }
+
+    @Test
+    public void drainsRepeatedlyIntoTheSameStream() throws IOException {
+        final ConcurrentSenMLBuilder builder = ConcurrentSenMLBuilder.initJson();
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                fail("The caller's stream must stay open");
+            }
+        };
+
+        builder.addRecord(Label.NAME.attachValue("x"));
+        builder.getSenML(outputStream);
+        builder.addRecord(Label.NAME.attachValue("y"));
+        builder.getSenML(outputStream);
+
+        assertEquals("[{\"n\":\"x\"}][{\"n\":\"y\"}]", outputStream.toString());
+    }
+
+}
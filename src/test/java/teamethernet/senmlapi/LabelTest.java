@@ -44,7 +44,10 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class LabelTest {
 
@@ -57,4 +60,42 @@ public class LabelTest {
                 labelFields.size(), Label.getNameToValueMap(JsonFormatter.class).size());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void nameToValueMap_isSharedPerFormatter() {
+        assertSame(Label.getNameToValueMap(JsonFormatter.class), Label.getNameToValueMap(JsonFormatter.class));
+        assertSame(Label.getNameToValueMap(CborFormatter.class), Label.getNameToValueMap(CborFormatter.class));
+        assertSame(Label.BASE_VERSION, Label.getNameToValueMap(JsonFormatter.class).get("bver"));
+        assertSame(Label.BASE_VERSION, Label.getNameToValueMap(CborFormatter.class).get("-1"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void nameToValueMap_isImmutable() {
+        Label.getNameToValueMap(JsonFormatter.class).put("x", Label.NAME);
+    }
+
+    @Test
+    public void fromCborKey_coversAllLabels() {
+        for (final Label label : Label.getNameToValueMap(CborFormatter.class).values()) {
+            assertSame(label, Label.fromCborKey(label.getCborKey()));
+            assertSame(label, Label.fromCborKey(label.getFormattedLabel(CborFormatter.class)));
+        }
+        assertNull(Label.fromCborKey(9));
+        assertNull(Label.fromCborKey("bn"));
+    }
+
+    @Test
+    public void attachData_valueIsBase64Url() {
+        final Label.Pair pair = Label.DATA_VALUE.attachData(new byte[]{(byte) 0xFB, (byte) 0xFF, 0x00});
+
+        assertArrayEquals(new byte[]{(byte) 0xFB, (byte) 0xFF, 0x00}, pair.getData());
+        assertEquals("-_8A", pair.getValue());
+        assertSame(pair.getValue(), pair.getValue());
+        assertNull(Label.DATA_VALUE.attachValue("-_8A").getData());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void attachData_onlyForDataValue() {
+        Label.STRING_VALUE.attachData(new byte[0]);
+    }
+
+}
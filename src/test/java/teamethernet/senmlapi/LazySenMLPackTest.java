@@ -0,0 +1,108 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LazySenMLPackTest {
+
+    private static final double EPSILON = Math.ulp(1.0);
+
+    @Test
+    public void json_decodesOnlyAccessedRecords() throws IOException {
+        final String pack = "[{\"n\":\"a\",\"v\":1.5}, {\"n\":\"b\",\"v\":nope}, {\"n\":\"c\",\"vs\":\"x]\"}]";
+        final LazySenMLPack<JsonFormatter> lazyPack = LazySenMLPack.initJson(pack.getBytes());
+
+        assertEquals(3, lazyPack.size());
+        assertEquals(1.5, lazyPack.getValue(Label.VALUE, 0), EPSILON);
+        assertEquals("x]", lazyPack.getValue(Label.STRING_VALUE, 2));
+        assertArrayEquals("{\"n\":\"b\",\"v\":nope}".getBytes(), lazyPack.getRecord(1));
+
+        try {
+            lazyPack.getValue(Label.VALUE, 1);
+            fail("Expected the malformed record to fail when it is decoded");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void json_cachedRecords() throws IOException {
+        final String pack = "[{\"bn\":\"dev:\",\"n\":\"a\",\"v\":1.5},{\"n\":\"b\",\"v\":2.5},{\"n\":\"c\",\"v\":3.5}]";
+        final LazySenMLPack<JsonFormatter> lazyPack = LazySenMLPack.initJson(pack.getBytes(), 2);
+        final SenMLAPI<JsonFormatter> senMLAPI = SenMLAPI.initJson(pack.getBytes());
+
+        for (int i = 0; i < 2; i++) {
+            for (int record = lazyPack.size() - 1; record >= 0; record--) {
+                assertEquals(senMLAPI.getLabels(record), lazyPack.getLabels(record));
+                assertEquals(senMLAPI.getSenMLRecord(record).toString(), lazyPack.getSenMLRecord(record).toString());
+            }
+        }
+    }
+
+    @Test
+    public void cbor_latestRecord() throws IOException {
+        final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor();
+        for (int i = 0; i < 100; i++) {
+            senMLAPI.addRecord(Label.NAME.attachValue("temperature"), Label.VALUE.attachValue((double) i));
+        }
+        final byte[] pack = senMLAPI.getSenML();
+
+        final LazySenMLPack<CborFormatter> lazyPack = LazySenMLPack.initCbor(pack, 1);
+
+        assertEquals(100, lazyPack.size());
+        assertEquals(99.0, lazyPack.getValue(Label.VALUE, 99), EPSILON);
+        assertEquals(Arrays.asList(Label.NAME, Label.VALUE), lazyPack.getLabels(99));
+        assertArrayEquals(senMLAPI.getRecord(99), lazyPack.getRecord(99));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void outOfBounds() throws IOException {
+        LazySenMLPack.initJson("[{\"n\":\"a\"}]".getBytes()).getRecord(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeCacheSize() throws IOException {
+        LazySenMLPack.initJson("[]".getBytes(), -1);
+    }
+
+}
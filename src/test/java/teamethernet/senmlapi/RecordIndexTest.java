@@ -0,0 +1,164 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package teamethernet.senmlapi;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class RecordIndexTest {
+
+    @Test
+    public void cbor_indefiniteArrayStartsSmall() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (final SenMLWriter writer = SenMLWriter.initCbor(outputStream)) {
+            writer.addRecord(Label.NAME.attachValue("a"), Label.VALUE.attachValue(1.0));
+        }
+        final byte[] pack = outputStream.toByteArray();
+
+        final RecordIndex index = RecordIndex.scanCbor(pack, 0, pack.length);
+        assertEquals(1, index.size());
+        assertEquals(16, index.capacity());
+    }
+
+    @Test
+    public void cbor_definiteArrayIsSizedByItsHeader() throws IOException {
+        final byte[] pack = new byte[41];
+        pack[0] = (byte) 0x98;
+        pack[1] = 39;
+        for (int i = 2; i < pack.length; i++) {
+            pack[i] = (byte) 0xA0;
+        }
+
+        final RecordIndex index = RecordIndex.scanCbor(pack, 0, pack.length);
+        assertEquals(39, index.size());
+        assertEquals(39, index.capacity());
+        assertEquals(40, index.start(38));
+    }
+
+    @Test
+    public void cbor_readsEightByteCount() throws IOException {
+        final byte[] pack = {(byte) 0x9B, 0, 0, 0, 0, 0, 0, 0, 1, (byte) 0xA0};
+
+        final RecordIndex index = RecordIndex.scanCbor(pack, 0, pack.length);
+        assertEquals(1, index.size());
+        assertEquals(9, index.start(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void cbor_rejectsHeaderClaimingMoreRecordsThanItHolds() throws IOException {
+        final byte[] pack = {(byte) 0x9A, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xA0};
+        RecordIndex.scanCbor(pack, 0, pack.length);
+    }
+
+    @Test(expected = IOException.class)
+    public void cbor_rejectsNegativeEightByteCount() throws IOException {
+        final byte[] pack = {(byte) 0x9B, (byte) 0x80, 0, 0, 0, (byte) 0x80, 0, 0, 0};
+        RecordIndex.scanCbor(pack, 0, pack.length);
+    }
+
+    @Test(expected = IOException.class)
+    public void cbor_rejectsNegativeEightByteCountWithRecords() throws IOException {
+        final byte[] pack = {(byte) 0x9B, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xA0};
+        LazySenMLPack.initCbor(pack);
+    }
+
+    @Test(expected = IOException.class)
+    public void cbor_rejectsNegativeMapLength() throws IOException {
+        final byte[] pack = {(byte) 0x81, (byte) 0xBB, (byte) 0x80, 0, 0, 0, 0, 0, 0, 1};
+        RecordIndex.scanCbor(pack, 0, pack.length);
+    }
+
+    @Test(expected = IOException.class)
+    public void cbor_rejectsDataAfterThePack() throws IOException {
+        final byte[] pack = {(byte) 0x81, (byte) 0xA0, (byte) 0xA0};
+        SenMLAPI.initCborWithRawRecords(pack);
+    }
+
+    @Test
+    public void cbor_readsEmptyDefiniteArray() throws IOException {
+        final byte[] pack = {(byte) 0x80};
+        assertEquals(0, RecordIndex.scanCbor(pack, 0, pack.length).size());
+    }
+
+    @Test
+    public void cbor_partialItemResumesAcrossPieces() throws IOException {
+        // {_ "n": (_ "a", "b"), "v": 1(1.5), "x": [{1: []}, h'0102'] } followed by a second item
+        final byte[] data = {(byte) 0xBF, 0x61, 0x6E, 0x7F, 0x61, 0x61, 0x61, 0x62, (byte) 0xFF,
+                0x61, 0x76, (byte) 0xC1, (byte) 0xFB, 0x3F, (byte) 0xF8, 0, 0, 0, 0, 0, 0,
+                0x61, 0x78, (byte) 0x82, (byte) 0xA1, 0x01, (byte) 0x80, 0x5A, 0, 0, 0, 2, 1, 2, (byte) 0xFF,
+                (byte) 0xA0};
+        final int end = data.length - 1;
+        final RecordIndex.PartialCborItem item = new RecordIndex.PartialCborItem();
+
+        for (int limit = 0; limit < end; limit++) {
+            assertEquals(-1, item.end(data, 0, limit));
+        }
+        assertEquals(end, item.end(data, 0, end));
+        assertEquals(data.length, item.end(data, end, data.length));
+    }
+
+    @Test
+    public void cbor_partialItemDoesNotRescanEarlierPieces() throws IOException {
+        final byte[] data = {(byte) 0x83, 0x01, 0x02, 0x03};
+        final RecordIndex.PartialCborItem item = new RecordIndex.PartialCborItem();
+
+        assertEquals(-1, item.end(data, 0, 3));
+        data[1] = (byte) 0xFC;
+        data[2] = (byte) 0xFC;
+        assertEquals(4, item.end(data, 0, 4));
+    }
+
+    @Test(expected = IOException.class)
+    public void cbor_partialItemRejectsBreakInDefiniteMap() throws IOException {
+        final byte[] data = {(byte) 0xA1, 0x01, (byte) 0xFF};
+        new RecordIndex.PartialCborItem().end(data, 0, data.length);
+    }
+
+    @Test(expected = IOException.class)
+    public void cbor_partialItemRejectsNegativeLength() throws IOException {
+        final byte[] data = {(byte) 0x9B, (byte) 0x80, 0, 0, 0, 0, 0, 0, 1};
+        new RecordIndex.PartialCborItem().end(data, 0, data.length);
+    }
+
+}
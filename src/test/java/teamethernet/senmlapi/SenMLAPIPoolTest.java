@@ -0,0 +1,82 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class SenMLAPIPoolTest {
+
+    @Test
+    public void reusesInstancePerThread() throws IOException {
+        final SenMLAPIPool<JsonFormatter> pool = SenMLAPIPool.initJson();
+
+        final SenMLAPI<JsonFormatter> first = pool.acquire();
+        first.addRecord(Label.NAME.attachValue("a"));
+        assertArrayEquals("[{\"n\":\"a\"}]".getBytes(), first.getSenML());
+
+        final SenMLAPI<JsonFormatter> second = pool.acquire();
+        assertSame(first, second);
+        assertEquals(0, second.size());
+
+        final SenMLAPI<JsonFormatter> decoded = pool.acquire("[{\"n\":\"b\"}]".getBytes());
+        assertSame(first, decoded);
+        assertEquals("b", decoded.getValue(Label.NAME, 0));
+    }
+
+    @Test
+    public void separateInstancesForOtherThreads() throws Exception {
+        final SenMLAPIPool<CborFormatter> pool = SenMLAPIPool.initCbor();
+        final SenMLAPI<CborFormatter> own = pool.acquire();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            final Future<SenMLAPI<CborFormatter>> other = executor.submit(() -> pool.acquire());
+            assertNotSame(own, other.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -42,11 +42,17 @@ import org.junit.Test;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.runner.RunWith;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.*;
 
@@ -162,6 +168,60 @@ public class SenMLAPITest {
                 assertArrayEquals(expected.getBytes(), senMLAPI.getSenML());
             }
 
+            @Test
+            public void callerOwnedBuffers() throws IOException {
+                senMLAPI.addRecord(Label.NAME.attachValue("a"), Label.VALUE.attachValue(1.5));
+                final byte[] expected = "[{\"n\":\"a\",\"v\":1.5}]".getBytes();
+
+                final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                senMLAPI.getSenML(outputStream);
+                assertArrayEquals(expected, outputStream.toByteArray());
+
+                final ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+                buffer.put((byte) 'x');
+                assertEquals(expected.length, senMLAPI.getSenML(buffer));
+                assertEquals(1 + expected.length, buffer.position());
+            }
+
+            @Test(expected = BufferOverflowException.class)
+            public void bufferTooSmall() throws IOException {
+                senMLAPI.addRecord(Label.NAME.attachValue("a"), Label.VALUE.attachValue(1.5));
+                senMLAPI.getSenML(ByteBuffer.allocate(8));
+            }
+
+            @Test
+            public void reset() throws IOException {
+                senMLAPI.addRecord(Label.NAME.attachValue("a"), Label.VALUE.attachValue(1.5));
+                assertArrayEquals("[{\"n\":\"a\",\"v\":1.5}]".getBytes(), senMLAPI.getSenML());
+
+                senMLAPI.reset();
+                assertEquals(0, senMLAPI.size());
+                senMLAPI.addRecord(Label.NAME.attachValue("b"));
+                assertArrayEquals("[{\"n\":\"b\"}]".getBytes(), senMLAPI.getSenML());
+
+                senMLAPI.reset("[{\"n\":\"c\"},{\"n\":\"d\"}]".getBytes());
+                assertEquals(2, senMLAPI.size());
+                assertEquals("d", senMLAPI.getValue(Label.NAME, 1));
+            }
+
+            @Test(expected = IOException.class)
+            public void resetWithoutArray() throws IOException {
+                senMLAPI.reset("{\"n\":\"a\"}".getBytes());
+            }
+
+            @Test
+            public void resetWithTruncatedPackLeavesNoRecords() throws IOException {
+                senMLAPI.addRecord(Label.NAME.attachValue("a"));
+
+                try {
+                    senMLAPI.reset("[{\"n\":\"c\"},{\"n\":\"d\"},{\"n\":".getBytes());
+                    fail();
+                } catch (final IOException e) {
+                    assertEquals(0, senMLAPI.size());
+                    assertArrayEquals("[]".getBytes(), senMLAPI.getSenML());
+                }
+            }
+
         }
 
         public static class DecodeTests {
@@ -232,6 +292,190 @@ public class SenMLAPITest {
                 assertEquals(labels2Expected, labels2);
             }
 
+            @Test
+            public void allLabelsOfAllRecords() throws IOException {
+                final String inputJson = "[{\"bn\":\"mac:urn:dev:3290\",\"v\":30.0,\"vb\":false},{\"bn\":\"hello\",\"ut\":0.01,\"bt\":0.0,\"bu\":\"Watt\"},{\"s\":3040.201}]";
+                final SenMLAPI<JsonFormatter> senMLAPI = SenMLAPI.initJson(inputJson.getBytes());
+
+                final List<List<Label>> labels = senMLAPI.getLabels();
+
+                assertEquals(3, labels.size());
+                for (int i = 0; i < labels.size(); i++) {
+                    assertEquals(senMLAPI.getLabels(i), labels.get(i));
+                }
+            }
+
+            @Test
+            public void primitiveValues() throws IOException {
+                final String inputJson = "[{\"bn\":\"mac:urn:dev:3290\",\"bver\":10,\"v\":30.0,\"vb\":true}]";
+                final SenMLAPI<JsonFormatter> senMLAPI = SenMLAPI.initJson(inputJson.getBytes());
+
+                assertEquals(30.0, senMLAPI.getDouble(Label.VALUE, 0), EPSILON);
+                assertEquals(10, senMLAPI.getInt(Label.BASE_VERSION, 0));
+                assertTrue(senMLAPI.getBoolean(Label.BOOLEAN_VALUE, 0));
+            }
+
+            @Test
+            public void bulkDoubleValues() throws IOException {
+                final String inputJson = "[{\"n\":\"a\",\"v\":1.5},{\"n\":\"b\",\"vs\":\"on\"},{\"n\":\"c\",\"v\":-2}]";
+                final SenMLAPI<JsonFormatter> senMLAPI = SenMLAPI.initJson(inputJson.getBytes());
+
+                final double[] values = new double[4];
+                assertEquals(3, senMLAPI.getDoubles(Label.VALUE, values, 1));
+
+                assertEquals(0.0, values[0], EPSILON);
+                assertEquals(1.5, values[1], EPSILON);
+                assertTrue(Double.isNaN(values[2]));
+                assertEquals(-2.0, values[3], EPSILON);
+            }
+
+            @Test
+            public void bulkDoubleValuesAtEndOfArray() throws IOException {
+                final SenMLAPI<JsonFormatter> senMLAPI = SenMLAPI.initJson("[{\"v\":1.5}]".getBytes());
+
+                assertEquals(0, senMLAPI.getDoubles(Label.VALUE, new double[2], 2));
+            }
+
+            @Test(expected = IndexOutOfBoundsException.class)
+            public void bulkDoubleValuesOffsetPastEnd() throws IOException {
+                SenMLAPI.initJson("[{\"v\":1.5}]".getBytes()).getDoubles(Label.VALUE, new double[2], 3);
+            }
+
+            @Test(expected = IndexOutOfBoundsException.class)
+            public void bulkDoubleValuesNegativeOffset() throws IOException {
+                SenMLAPI.initJson("[{\"v\":1.5}]".getBytes()).getDoubles(Label.VALUE, new double[2], -1);
+            }
+
+            @Test
+            public void byteArraySlice() throws IOException {
+                final byte[] buffer = "xx[{\"n\":\"a\",\"v\":1.5}]yy".getBytes();
+                final SenMLAPI<JsonFormatter> senMLAPI = SenMLAPI.initJson(buffer, 2, buffer.length - 4);
+
+                assertEquals("a", senMLAPI.getValue(Label.NAME, 0));
+                assertEquals(1.5, senMLAPI.getDouble(Label.VALUE, 0), EPSILON);
+            }
+
+            @Test
+            public void directByteBuffer() throws IOException {
+                final byte[] inputJson = "[{\"n\":\"a\",\"v\":1.5}]".getBytes();
+                final ByteBuffer buffer = ByteBuffer.allocateDirect(inputJson.length);
+                buffer.put(inputJson).flip();
+
+                final SenMLAPI<JsonFormatter> senMLAPI = SenMLAPI.initJson(buffer);
+
+                assertEquals(1.5, senMLAPI.getDouble(Label.VALUE, 0), EPSILON);
+                assertEquals(0, buffer.position());
+            }
+
+            @Test
+            public void mappedFile() throws IOException {
+                final Path path = Files.createTempFile("senml", ".json");
+                try {
+                    Files.write(path, "[{\"n\":\"a\",\"v\":1.5},{\"n\":\"b\",\"v\":2.5}]".getBytes());
+                    final SenMLAPI<JsonFormatter> senMLAPI = SenMLAPI.initJson(path);
+
+                    assertEquals(2, senMLAPI.size());
+                    assertEquals(2.5, senMLAPI.getDouble(Label.VALUE, 1), EPSILON);
+                } finally {
+                    Files.delete(path);
+                }
+            }
+
+            @Test
+            public void addRecordFromBuffers() throws IOException {
+                final SenMLAPI<JsonFormatter> senMLAPI = SenMLAPI.initJson();
+                final byte[] record = "[{\"n\":\"a\"}]".getBytes();
+
+                senMLAPI.addRecord(record, 1, record.length - 2);
+                senMLAPI.addRecord(ByteBuffer.wrap("{\"n\":\"b\"}".getBytes()));
+
+                assertArrayEquals("[{\"n\":\"a\"},{\"n\":\"b\"}]".getBytes(), senMLAPI.getSenML());
+            }
+
+            @Test
+            public void rawRecords() throws IOException {
+                final String inputJson = "[{ \"n\": \"a\", \"v\": 1.5 },\n {\"n\":\"b\",\"v\":2.50}]";
+                final SenMLAPI<JsonFormatter> senMLAPI = SenMLAPI.initJsonWithRawRecords(inputJson.getBytes());
+                senMLAPI.addRecord(Label.NAME.attachValue("c"), Label.VALUE.attachValue(3.5));
+
+                final List<byte[]> records = senMLAPI.getRecords();
+
+                assertEquals(3, records.size());
+                assertArrayEquals("{ \"n\": \"a\", \"v\": 1.5 }".getBytes(), records.get(0));
+                assertArrayEquals("{\"n\":\"b\",\"v\":2.50}".getBytes(), records.get(1));
+                assertArrayEquals("{\"n\":\"c\",\"v\":3.5}".getBytes(), records.get(2));
+                assertEquals(2.5, senMLAPI.getDouble(Label.VALUE, 1), EPSILON);
+
+                final ByteBuffer buffer = senMLAPI.getRecordBuffer(1);
+
+                assertTrue(buffer.isReadOnly());
+                assertEquals(0, buffer.position());
+                assertEquals(records.get(1).length, buffer.remaining());
+                assertEquals(ByteBuffer.wrap(records.get(1)), buffer);
+            }
+
+            @Test
+            public void dataValues() throws IOException {
+                final SenMLAPI<JsonFormatter> senMLAPI = SenMLAPI.initJson("[{\"vd\":\"-_8A\"},{\"vd\":\"-_8=\"},{\"n\":\"a\"}]".getBytes());
+                senMLAPI.addRecord(Label.DATA_VALUE.attachData(new byte[]{1, 2, 3, 4}));
+
+                assertArrayEquals(new byte[]{(byte) 0xFB, (byte) 0xFF, 0x00}, senMLAPI.getData(0));
+                assertArrayEquals(new byte[]{(byte) 0xFB, (byte) 0xFF}, senMLAPI.getData(1));
+                assertNull(senMLAPI.getData(2));
+                assertEquals("AQIDBA", senMLAPI.getValue(Label.DATA_VALUE, 3));
+
+                final ByteBuffer buffer = ByteBuffer.allocate(8);
+                assertEquals(3, senMLAPI.getData(0, buffer));
+                assertEquals(4, senMLAPI.getData(3, buffer));
+                assertEquals(-1, senMLAPI.getData(2, buffer));
+                assertEquals(ByteBuffer.wrap(new byte[]{(byte) 0xFB, (byte) 0xFF, 0x00, 1, 2, 3, 4}), (ByteBuffer) buffer.flip());
+            }
+
+        }
+
+        public static class ParallelDecodeTests {
+
+            @Test
+            public void matchesSequentialDecode() throws IOException {
+                final SenMLAPI<JsonFormatter> expected = SenMLAPI.initJson();
+
+                for (int i = 0; i < 20000; i++) {
+                    expected.addRecord(Label.NAME.attachValue("sensor" + i % 7),
+                            Label.STRING_VALUE.attachValue("quote \" brace } bracket ] comma , backslash \\ " + i),
+                            Label.TIME.attachValue((double) i));
+                }
+
+                final ForkJoinPool pool = new ForkJoinPool(4);
+                try {
+                    final SenMLAPI<JsonFormatter> actual = SenMLAPI.initJson(expected.getSenML(), pool);
+
+                    assertEquals(expected.size(), actual.size());
+                    assertArrayEquals(expected.getSenML(), actual.getSenML());
+                } finally {
+                    pool.shutdown();
+                }
+            }
+
+            @Test
+            public void whitespaceBetweenRecords() throws IOException {
+                final String inputJson = " [ {\"n\":\"a\",\"v\":1.0} ,\n\t{\"n\":\"b\",\"v\":2.0}\r\n] ";
+                final SenMLAPI<JsonFormatter> senMLAPI = SenMLAPI.initJson(inputJson.getBytes(), ForkJoinPool.commonPool());
+
+                assertEquals(2, senMLAPI.size());
+                assertEquals("b", senMLAPI.getValue(Label.NAME, 1));
+                assertEquals(2.0, senMLAPI.getDouble(Label.VALUE, 1), EPSILON);
+            }
+
+            @Test
+            public void empty() throws IOException {
+                assertEquals(0, SenMLAPI.initJson(" [ ] ".getBytes(), ForkJoinPool.commonPool()).size());
+            }
+
+            @Test(expected = IOException.class)
+            public void truncatedPack() throws IOException {
+                SenMLAPI.initJson("[{\"n\":\"a\"},{\"n\":".getBytes(), ForkJoinPool.commonPool());
+            }
+
         }
 
     }
@@ -341,6 +585,45 @@ public class SenMLAPITest {
                 assertArrayEquals(hexStringToByteArray(expected), senMLAPI.getSenML());
             }
 
+            @Test
+            public void integerKeys() throws IOException {
+                final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCborWithIntegerKeys();
+
+                final Label.Pair bn = Label.BASE_NAME.attachValue("mac:urn:dev:3290329032");
+                final Label.Pair v = Label.VALUE.attachValue(30.0);
+
+                senMLAPI.addRecord(bn, v);
+
+                final String expected = "81A221766D61633A75726E3A6465763A3332393033323930333202FB403E000000000000";
+                assertArrayEquals(hexStringToByteArray(expected), senMLAPI.getSenML());
+                assertArrayEquals(hexStringToByteArray(expected.substring(2)), senMLAPI.getRecord(0));
+            }
+
+            @Test
+            public void callerOwnedBuffers() throws IOException {
+                senMLAPI.addRecord(Label.NAME.attachValue("a"), Label.VALUE.attachValue(1.5));
+                final byte[] expected = senMLAPI.getSenML();
+
+                final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                senMLAPI.getSenML(outputStream);
+                assertArrayEquals(expected, outputStream.toByteArray());
+
+                final ByteBuffer buffer = ByteBuffer.allocate(64);
+                assertEquals(expected.length, senMLAPI.getSenML(buffer));
+                buffer.flip();
+                assertEquals(ByteBuffer.wrap(expected), buffer);
+            }
+
+            @Test
+            public void resetKeepsIntegerKeys() throws IOException {
+                final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCborWithIntegerKeys();
+                senMLAPI.addRecord(Label.NAME.attachValue("a"));
+                senMLAPI.reset();
+                senMLAPI.addRecord(Label.BASE_NAME.attachValue("mac:urn:dev:3290329032"), Label.VALUE.attachValue(30.0));
+
+                assertArrayEquals(hexStringToByteArray("81A221766D61633A75726E3A6465763A3332393033323930333202FB403E000000000000"), senMLAPI.getSenML());
+            }
+
         }
 
         public static class DecodeTests {
@@ -384,6 +667,30 @@ public class SenMLAPITest {
                 assertEquals(30.0, ut2, EPSILON);
             }
 
+            @Test
+            public void integerKeys() throws IOException {
+                final String cborData = "81A221766D61633A75726E3A6465763A3332393033323930333202FB403E000000000000";
+                final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor(hexStringToByteArray(cborData));
+
+                assertEquals("mac:urn:dev:3290329032", senMLAPI.getValue(Label.BASE_NAME, 0));
+                assertEquals(30.0, senMLAPI.getValue(Label.VALUE, 0), EPSILON);
+                assertEquals(Arrays.asList(Label.BASE_NAME, Label.VALUE), senMLAPI.getLabels(0));
+            }
+
+            @Test
+            public void primitiveValues() throws IOException {
+                final String cborData = "82A2622D32766D61633A75726E3A6465763A33323930333239303332622D3100A3622D32756D61633A75726E3A6465763A33323930333239343261336568656C6C6F6137F94F80";
+                final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor(hexStringToByteArray(cborData));
+
+                assertEquals(0, senMLAPI.getInt(Label.BASE_VERSION, 0));
+                assertEquals(30.0, senMLAPI.getDouble(Label.UPDATE_TIME, 1), EPSILON);
+
+                final double[] updateTimes = new double[2];
+                assertEquals(2, senMLAPI.getDoubles(Label.UPDATE_TIME, updateTimes));
+                assertTrue(Double.isNaN(updateTimes[0]));
+                assertEquals(30.0, updateTimes[1], EPSILON);
+            }
+
             @Test
             public void allLabels() throws IOException {
                 final String cborData = "83A3622D32706D61633A75726E3A6465763A333239306132F94F806134F4A4622D326568656C6C6F6137FB3F847AE147AE147B622D33F90000622D346457617474A16135FB40A7C066E978D4FE";
@@ -405,6 +712,112 @@ public class SenMLAPITest {
                 assertEquals(labels2Expected, labels2);
             }
 
+            @Test
+            public void byteArraySlice() throws IOException {
+                final byte[] buffer = hexStringToByteArray("FFFF81A16133706D61633A75726E3A6465763A33323930FFFF");
+                final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor(buffer, 2, buffer.length - 4);
+
+                assertEquals("mac:urn:dev:3290", senMLAPI.getValue(Label.STRING_VALUE, 0));
+            }
+
+            @Test
+            public void directByteBuffer() throws IOException {
+                final byte[] cborData = hexStringToByteArray("81A16133706D61633A75726E3A6465763A33323930");
+                final ByteBuffer buffer = ByteBuffer.allocateDirect(cborData.length);
+                buffer.put(cborData).flip();
+
+                final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor(buffer);
+
+                assertEquals("mac:urn:dev:3290", senMLAPI.getValue(Label.STRING_VALUE, 0));
+                assertEquals(0, buffer.position());
+            }
+
+            @Test
+            public void mappedFile() throws IOException {
+                final Path path = Files.createTempFile("senml", ".cbor");
+                try {
+                    Files.write(path, hexStringToByteArray("81A16133706D61633A75726E3A6465763A33323930"));
+                    final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor(path);
+
+                    assertEquals("mac:urn:dev:3290", senMLAPI.getValue(Label.STRING_VALUE, 0));
+                } finally {
+                    Files.delete(path);
+                }
+            }
+
+            @Test
+            public void rawRecords() throws IOException {
+                final SenMLAPI<CborFormatter> encoder = SenMLAPI.initCborWithIntegerKeys();
+                encoder.addRecord(Label.NAME.attachValue("a"), Label.VALUE.attachValue(1.5));
+                encoder.addRecord(Label.NAME.attachValue("b"), Label.STRING_VALUE.attachValue("on"));
+                final byte[] cborData = encoder.getSenML();
+
+                final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCborWithRawRecords(cborData);
+                final List<ByteBuffer> records = senMLAPI.getRecordBuffers();
+
+                assertEquals(2, records.size());
+                assertEquals(ByteBuffer.wrap(cborData, 1, records.get(0).remaining()), records.get(0));
+                assertEquals(ByteBuffer.wrap(cborData, 1 + records.get(0).remaining(), records.get(1).remaining()), records.get(1));
+                assertEquals(cborData.length, 1 + records.get(0).remaining() + records.get(1).remaining());
+                assertEquals("on", senMLAPI.getValue(Label.STRING_VALUE, 1));
+            }
+
+            @Test
+            public void dataValues() throws IOException {
+                final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor();
+                senMLAPI.addRecord(Label.DATA_VALUE.attachData(new byte[]{(byte) 0xFB, (byte) 0xFF, 0x00}));
+
+                final byte[] cborData = senMLAPI.getSenML();
+                assertArrayEquals(hexStringToByteArray("81BF613843FBFF00FF"), cborData);
+
+                final SenMLAPI<CborFormatter> decoded = SenMLAPI.initCbor(cborData);
+                assertArrayEquals(new byte[]{(byte) 0xFB, (byte) 0xFF, 0x00}, decoded.getData(0));
+                assertEquals("-_8A", decoded.getValue(Label.DATA_VALUE, 0));
+                assertArrayEquals(new byte[]{(byte) 0xFB, (byte) 0xFF, 0x00}, decoded.getSenMLRecord(0).getPairs().get(0).getData());
+            }
+
+        }
+
+        public static class ParallelDecodeTests {
+
+            @Test
+            public void definiteLengthPack() throws IOException {
+                final SenMLAPI<CborFormatter> expected = SenMLAPI.initCbor();
+
+                for (int i = 0; i < 20000; i++) {
+                    expected.addRecord(Label.NAME.attachValue("sensor" + i % 7),
+                            Label.VALUE.attachValue(i / 3.0),
+                            Label.BOOLEAN_VALUE.attachValue(i % 2 == 0),
+                            Label.BASE_VERSION.attachValue(i));
+                }
+
+                final SenMLAPI<CborFormatter> actual = SenMLAPI.initCbor(expected.getSenML(), ForkJoinPool.commonPool());
+
+                assertEquals(expected.size(), actual.size());
+                assertArrayEquals(expected.getSenML(), actual.getSenML());
+            }
+
+            @Test
+            public void indefiniteLengthPack() throws IOException {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+                try (final SenMLWriter writer = SenMLWriter.initCbor(out)) {
+                    for (int i = 0; i < 5000; i++) {
+                        writer.addRecord(Label.NAME.attachValue("sensor"), Label.TIME.attachValue((double) i));
+                    }
+                }
+
+                final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor(out.toByteArray(), ForkJoinPool.commonPool());
+
+                assertEquals(5000, senMLAPI.size());
+                assertEquals(4999.0, senMLAPI.getDouble(Label.TIME, 4999), EPSILON);
+            }
+
+            @Test(expected = IOException.class)
+            public void truncatedPack() throws IOException {
+                SenMLAPI.initCbor(hexStringToByteArray("82A16130F94F80A1"), ForkJoinPool.commonPool());
+            }
+
         }
 
         private static byte[] hexStringToByteArray(String s) {
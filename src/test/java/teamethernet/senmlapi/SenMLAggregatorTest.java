@@ -0,0 +1,118 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package teamethernet.senmlapi;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class SenMLAggregatorTest {
+
+    @Test
+    public void json_tumblingAverage() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (final SenMLWriter writer = SenMLWriter.initJson(outputStream)) {
+            final SenMLAggregator aggregator = SenMLAggregator.tumbling(writer, SenMLAggregator.Aggregate.AVG, 10);
+            aggregator.add(record("temp", 0, 1));
+            aggregator.add(record("temp", 5, 3));
+            aggregator.add(record("hum", 7, 10));
+            aggregator.add(record("temp", 12, 5));
+            aggregator.add(record("temp", 25, 7));
+            aggregator.add(record("temp", 3, 100));
+            aggregator.flush();
+
+            assertEquals(1, aggregator.getLateRecords());
+        }
+
+        assertEquals("[{\"n\":\"temp\",\"t\":0.0,\"v\":2.0},{\"n\":\"hum\",\"t\":0.0,\"v\":10.0}," +
+                "{\"n\":\"temp\",\"t\":10.0,\"v\":5.0},{\"n\":\"temp\",\"t\":20.0,\"v\":7.0}]", outputStream.toString());
+    }
+
+    @Test
+    public void json_slidingSumOfResolvedRecords() throws IOException {
+        final String inputJson = "[{\"bn\":\"dev:\",\"bt\":1000.0,\"n\":\"x\",\"u\":\"W\",\"t\":1.0,\"v\":1.0}," +
+                "{\"n\":\"x\",\"u\":\"W\",\"t\":6.0,\"v\":2.0},{\"n\":\"x\",\"vs\":\"ignored\"},{\"n\":\"x\",\"u\":\"W\",\"t\":11.0,\"v\":4.0}]";
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (final SenMLReader reader = SenMLReader.initJson(ByteBuffer.wrap(inputJson.getBytes()));
+             final SenMLWriter writer = SenMLWriter.initJson(outputStream)) {
+            final SenMLAggregator aggregator = SenMLAggregator.sliding(writer, SenMLAggregator.Aggregate.SUM, 10, 5);
+            SenMLRecord record;
+            while ((record = reader.next()) != null) {
+                aggregator.add(record);
+            }
+            aggregator.flush();
+        }
+
+        assertEquals("[{\"n\":\"dev:x\",\"u\":\"W\",\"t\":995.0,\"s\":1.0},{\"n\":\"dev:x\",\"u\":\"W\",\"t\":1000.0,\"s\":3.0}," +
+                "{\"n\":\"dev:x\",\"u\":\"W\",\"t\":1005.0,\"s\":6.0},{\"n\":\"dev:x\",\"u\":\"W\",\"t\":1010.0,\"s\":4.0}]",
+                outputStream.toString());
+    }
+
+    @Test
+    public void json_skipsEmptyWindows() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (final SenMLWriter writer = SenMLWriter.initJson(outputStream)) {
+            final SenMLAggregator aggregator = SenMLAggregator.sliding(writer, SenMLAggregator.Aggregate.COUNT, 2, 1);
+            aggregator.add(record("a", 0, 1));
+            aggregator.add(record("a", 1e9, 1));
+            aggregator.add(record("a", 1e9, 2));
+            aggregator.flush();
+        }
+
+        assertEquals("[{\"n\":\"a\",\"t\":-1.0,\"v\":1.0},{\"n\":\"a\",\"t\":0.0,\"v\":1.0}," +
+                "{\"n\":\"a\",\"t\":9.99999999E8,\"v\":2.0},{\"n\":\"a\",\"t\":1.0E9,\"v\":2.0}]", outputStream.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsWidthThatIsNotAMultipleOfStep() throws IOException {
+        SenMLAggregator.sliding(SenMLWriter.initJson(new ByteArrayOutputStream()), SenMLAggregator.Aggregate.MIN, 10, 3);
+    }
+
+    private static SenMLRecord record(final String name, final double time, final double value) {
+        return SenMLRecord.of(Label.NAME.attachValue(name), Label.TIME.attachValue(time), Label.VALUE.attachValue(value));
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class SenMLColumnsTest {
+
+    private static final double EPSILON = Math.ulp(1.0);
+
+    private static final String PACK = "[" +
+            "{\"bn\":\"urn:dev:ow:10e2073a0108006:\",\"bt\":1.276020076001e+09,\"bu\":\"A\",\"bver\":5,\"n\":\"voltage\",\"u\":\"V\",\"v\":120.1}," +
+            "{\"n\":\"current\",\"v\":1.2,\"t\":-5.0}," +
+            "{\"n\":\"current\",\"vb\":true,\"t\":-4.0}," +
+            "{\"n\":\"label\",\"vs\":\"current\"}]";
+
+    @Test
+    public void storesLabelsAsColumns() throws IOException {
+        final SenMLColumns columns = SenMLColumns.read(SenMLReader.initJson(ByteBuffer.wrap(PACK.getBytes())));
+
+        assertEquals(4, columns.size());
+        assertEquals("urn:dev:ow:10e2073a0108006:", columns.getString(Label.BASE_NAME, 0));
+        assertEquals(5, columns.getInt(Label.BASE_VERSION, 0));
+        assertEquals(120.1, columns.getDouble(Label.VALUE, 0), EPSILON);
+        assertEquals("current", columns.getString(Label.NAME, 2));
+        assertTrue(columns.getBoolean(Label.BOOLEAN_VALUE, 2));
+        assertEquals("current", columns.getString(Label.STRING_VALUE, 3));
+        assertFalse(columns.hasValue(Label.VALUE, 2));
+        assertNull(columns.getValue(Label.TIME, 0));
+
+        final double[] values = new double[4];
+        assertEquals(4, columns.getDoubles(Label.VALUE, values, 0));
+        assertEquals(1.2, values[1], EPSILON);
+        assertTrue(Double.isNaN(values[2]));
+        assertTrue(Double.isNaN(values[3]));
+    }
+
+    @Test
+    public void getDoubles_offsetAtEndOfArray() throws IOException {
+        final SenMLColumns columns = SenMLColumns.of(SenMLAPI.initJson(PACK.getBytes()));
+
+        assertEquals(0, columns.getDoubles(Label.VALUE, new double[2], 2));
+        assertEquals(0, columns.getDoubles(Label.SUM, new double[2], 2));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getDoubles_offsetPastEnd() throws IOException {
+        SenMLColumns.of(SenMLAPI.initJson(PACK.getBytes())).getDoubles(Label.VALUE, new double[2], 3);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getDoubles_negativeOffset() throws IOException {
+        SenMLColumns.of(SenMLAPI.initJson(PACK.getBytes())).getDoubles(Label.VALUE, new double[2], -1);
+    }
+
+    @Test
+    public void json_roundTrip() throws IOException {
+        final SenMLColumns columns = SenMLColumns.of(SenMLAPI.initJson(PACK.getBytes()));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (final SenMLWriter writer = SenMLWriter.initJson(out)) {
+            columns.write(writer);
+        }
+
+        final SenMLAPI<JsonFormatter> expected = SenMLAPI.initJson(PACK.getBytes());
+        final SenMLAPI<JsonFormatter> actual = SenMLAPI.initJson(out.toByteArray());
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getSenMLRecord(i).toString(), columns.getRecord(i).toString());
+            assertEquals(expected.getSenMLRecord(i).toString(), actual.getSenMLRecord(i).toString());
+        }
+    }
+
+    @Test
+    public void cbor_roundTrip() throws IOException {
+        final ByteArrayOutputStream cbor = new ByteArrayOutputStream();
+
+        try (final SenMLWriter writer = SenMLWriter.initCbor(cbor)) {
+            SenMLColumns.of(SenMLAPI.initJson(PACK.getBytes())).write(writer);
+        }
+
+        final SenMLColumns columns = SenMLColumns.read(SenMLReader.initCbor(ByteBuffer.wrap(cbor.toByteArray())));
+
+        assertEquals(4, columns.size());
+        assertEquals(1.276020076001e+09, columns.getDouble(Label.BASE_TIME, 0), EPSILON);
+        assertEquals(-4.0, columns.getDouble(Label.TIME, 2), EPSILON);
+        assertEquals("V", columns.getString(Label.UNIT, 0));
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        final SenMLColumns columns = new SenMLColumns();
+
+        for (int i = 0; i < 100; i++) {
+            columns.addRecord(Label.NAME.attachValue("temp"), Label.TIME.attachValue((double) i));
+        }
+
+        assertEquals(100, columns.size());
+        assertEquals(99.0, columns.getDouble(Label.TIME, 99), EPSILON);
+        assertEquals("temp", columns.getString(Label.NAME, 99));
+    }
+
+    @Test
+    public void cbor_columnsKeepByteAndTextDataValues() throws IOException {
+        final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor();
+        senMLAPI.addRecord(Label.NAME.attachValue("a"), Label.DATA_VALUE.attachData(new byte[]{1, 2, 3}));
+        senMLAPI.addRecord(Label.NAME.attachValue("b"), Label.DATA_VALUE.attachValue("BAU"));
+
+        final SenMLColumns columns = SenMLColumns.of(senMLAPI);
+        assertArrayEquals(new byte[]{1, 2, 3}, columns.getData(0));
+        assertEquals("AQID", columns.getString(Label.DATA_VALUE, 0));
+        assertArrayEquals(new byte[]{4, 5}, columns.getData(1));
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (final SenMLWriter writer = SenMLWriter.initCbor(outputStream)) {
+            columns.write(writer);
+        }
+
+        try (final SenMLReader reader = SenMLReader.initCbor(ByteBuffer.wrap(outputStream.toByteArray()))) {
+            assertArrayEquals(new byte[]{1, 2, 3}, reader.next().getData());
+            assertEquals("BAU", reader.next().getValue(Label.DATA_VALUE));
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SenMLCompactorTest {
+
+    private static final String EXPANDED = "[" +
+            "{\"n\":\"urn:dev:ow:10e2073a01080063:voltage\",\"u\":\"V\",\"v\":120.1,\"t\":1.276020076001E9}," +
+            "{\"n\":\"urn:dev:ow:10e2073a01080063:current\",\"u\":\"A\",\"v\":1.2,\"t\":1.276020071001E9}," +
+            "{\"n\":\"urn:dev:ow:10e2073a01080063:current\",\"u\":\"A\",\"v\":1.3,\"t\":1.276020076001E9}]";
+
+    @Test
+    public void factorsOutBaseFields() throws IOException {
+        final SenMLAPI<JsonFormatter> senMLAPI = SenMLAPI.initJson(EXPANDED.getBytes());
+        final List<ResolvedRecord> expected = senMLAPI.getResolvedRecords();
+
+        senMLAPI.compact();
+
+        final String compacted = "[" +
+                "{\"bn\":\"urn:dev:ow:10e2073a01080063:\",\"bt\":1.276020076001E9,\"bu\":\"A\",\"n\":\"voltage\",\"u\":\"V\",\"v\":120.1}," +
+                "{\"n\":\"current\",\"v\":1.2,\"t\":-5.0}," +
+                "{\"n\":\"current\",\"v\":1.3}]";
+
+        assertEquals(compacted, new String(senMLAPI.getSenML()));
+        assertSameResolved(expected, senMLAPI.getResolvedRecords());
+    }
+
+    @Test
+    public void resolvesBaseValuesAndVersion() {
+        final List<SenMLRecord> records = Arrays.asList(
+                SenMLRecord.of(Label.BASE_VERSION.attachValue(10), Label.BASE_NAME.attachValue("dev:"), Label.BASE_VALUE.attachValue(10.0),
+                        Label.NAME.attachValue("a"), Label.VALUE.attachValue(0.5), Label.TIME.attachValue(-3.0)),
+                SenMLRecord.of(Label.BASE_SUM.attachValue(100.0), Label.NAME.attachValue("b"), Label.SUM.attachValue(2.5)),
+                SenMLRecord.of(Label.NAME.attachValue("c"), Label.STRING_VALUE.attachValue("on"), Label.UPDATE_TIME.attachValue(60.0)));
+
+        final List<SenMLRecord> compacted = SenMLCompactor.compact(records);
+
+        assertEquals(Integer.valueOf(10), compacted.get(0).getValue(Label.BASE_VERSION));
+        assertFalse(compacted.get(0).hasLabel(Label.BASE_VALUE));
+        assertFalse(compacted.get(1).hasLabel(Label.BASE_SUM));
+        assertSameResolved(resolve(records), resolve(compacted));
+    }
+
+    @Test
+    public void noBaseUnitIfARecordHasNoUnit() {
+        final List<SenMLRecord> records = Arrays.asList(
+                SenMLRecord.of(Label.NAME.attachValue("a"), Label.UNIT.attachValue("V"), Label.VALUE.attachValue(1.0)),
+                SenMLRecord.of(Label.NAME.attachValue("b"), Label.UNIT.attachValue("V"), Label.VALUE.attachValue(2.0)),
+                SenMLRecord.of(Label.NAME.attachValue("c"), Label.VALUE.attachValue(3.0)));
+
+        final List<SenMLRecord> compacted = SenMLCompactor.compact(records);
+
+        assertFalse(compacted.get(0).hasLabel(Label.BASE_UNIT));
+        assertFalse(compacted.get(0).hasLabel(Label.BASE_NAME));
+        assertSameResolved(resolve(records), resolve(compacted));
+    }
+
+    @Test
+    public void keepsAbsoluteTimesIfNotExact() {
+        final List<SenMLRecord> records = Arrays.asList(
+                SenMLRecord.of(Label.NAME.attachValue("a"), Label.TIME.attachValue(0.3)),
+                SenMLRecord.of(Label.NAME.attachValue("a"), Label.TIME.attachValue(1e-17)));
+
+        final List<SenMLRecord> compacted = SenMLCompactor.compact(records);
+
+        assertFalse(compacted.get(0).hasLabel(Label.BASE_TIME));
+        assertSameResolved(resolve(records), resolve(compacted));
+    }
+
+    @Test
+    public void empty() {
+        assertTrue(SenMLCompactor.compact(new ArrayList<>()).isEmpty());
+    }
+
+    private static List<ResolvedRecord> resolve(final List<SenMLRecord> records) {
+        final SenMLResolver resolver = new SenMLResolver();
+        final List<ResolvedRecord> resolved = new ArrayList<>();
+
+        for (final SenMLRecord record : records) {
+            resolved.add(resolver.resolve(record));
+        }
+
+        return resolved;
+    }
+
+    private static void assertSameResolved(final List<ResolvedRecord> expected, final List<ResolvedRecord> actual) {
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), actual.get(i).toString());
+        }
+    }
+
+    @Test
+    public void cbor_compactKeepsByteStringDataValues() throws IOException {
+        final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor();
+        senMLAPI.addRecord(Label.NAME.attachValue("dev:a"), Label.DATA_VALUE.attachData(new byte[]{1, 2, 3}));
+        senMLAPI.addRecord(Label.NAME.attachValue("dev:b"), Label.DATA_VALUE.attachData(new byte[]{4}));
+        senMLAPI.compact();
+
+        assertEquals("dev:", senMLAPI.getValue(Label.BASE_NAME, 0));
+        try (final SenMLReader reader = SenMLReader.initCbor(ByteBuffer.wrap(senMLAPI.getSenML()))) {
+            assertArrayEquals(new byte[]{1, 2, 3}, reader.next().getData());
+            assertArrayEquals(new byte[]{4}, reader.next().getData());
+        }
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package teamethernet.senmlapi;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SenMLFeedDecoderTest {
+
+    private static final double EPSILON = Math.ulp(1.0);
+
+    private static final String PACK = "[{\"bn\":\"dev:\",\"bt\":100.0,\"n\":\"temp\",\"u\":\"Cel\",\"v\":20.5}," +
+            "{\"n\":\"state\",\"x\":{\"nested\":[1,{\"a\":2}]},\"vs\":\"on\"},{\"n\":\"door\",\"vb\":true,\"t\":-1.0}]";
+
+    @Test
+    public void json_decodesByteByByte() throws IOException {
+        try (final SenMLFeedDecoder decoder = SenMLFeedDecoder.initJson()) {
+            assertPack(feedInChunks(decoder, PACK.getBytes(), 1));
+            assertTrue(decoder.isFinished());
+        }
+    }
+
+    @Test
+    public void json_decodesRecordsAsSoonAsTheyClose() throws IOException {
+        final byte[] pack = PACK.getBytes();
+        final int firstRecordEnd = PACK.indexOf('}') + 1;
+
+        try (final SenMLFeedDecoder decoder = SenMLFeedDecoder.initJson()) {
+            decoder.feed(pack, 0, firstRecordEnd);
+            assertEquals("temp", decoder.next().getValue(Label.NAME));
+            assertNull(decoder.next());
+            assertFalse(decoder.isFinished());
+
+            decoder.feed(pack, firstRecordEnd, pack.length - firstRecordEnd);
+            assertEquals("state", decoder.next().getValue(Label.NAME));
+            assertEquals("door", decoder.next().getValue(Label.NAME));
+            assertNull(decoder.next());
+            assertTrue(decoder.isFinished());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void json_rejectsFeedingBeforeDraining() throws IOException {
+        try (final SenMLFeedDecoder decoder = SenMLFeedDecoder.initJson()) {
+            decoder.feed(PACK.getBytes());
+            decoder.feed(PACK.getBytes());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void json_failsOnTruncatedPack() throws IOException {
+        try (final SenMLFeedDecoder decoder = SenMLFeedDecoder.initJson()) {
+            decoder.feed(PACK.getBytes(), 0, 20);
+            assertNull(decoder.next());
+            decoder.endOfInput();
+            decoder.next();
+        }
+    }
+
+    @Test
+    public void cbor_decodesIndefiniteArrayInChunks() throws IOException {
+        final byte[] cbor = SenMLTranscoder.jsonToCbor().transcode(PACK.getBytes());
+
+        for (final int chunkSize : new int[]{1, 3, 7, cbor.length}) {
+            try (final SenMLFeedDecoder decoder = SenMLFeedDecoder.initCbor()) {
+                assertPack(feedInChunks(decoder, cbor, chunkSize));
+                assertTrue(decoder.isFinished());
+            }
+        }
+    }
+
+    @Test
+    public void cbor_decodesDefiniteArrayWithTextKeys() throws IOException {
+        final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor();
+        senMLAPI.addRecord(Label.NAME.attachValue("a"), Label.VALUE.attachValue(1.0));
+        senMLAPI.addRecord(Label.NAME.attachValue("b"), Label.STRING_VALUE.attachValue("x"));
+
+        try (final SenMLFeedDecoder decoder = SenMLFeedDecoder.initCbor()) {
+            final List<SenMLRecord> records = feedInChunks(decoder, senMLAPI.getSenML(), 2);
+            assertEquals(2, records.size());
+            assertEquals(1.0, records.get(0).getValue(Label.VALUE), EPSILON);
+            assertEquals("x", records.get(1).getValue(Label.STRING_VALUE));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void cbor_failsOnTruncatedPack() throws IOException {
+        final byte[] cbor = SenMLTranscoder.jsonToCbor().transcode(PACK.getBytes());
+
+        try (final SenMLFeedDecoder decoder = SenMLFeedDecoder.initCbor()) {
+            decoder.feed(cbor, 0, cbor.length - 2);
+            while (decoder.next() != null) {
+                // drain the complete records
+            }
+            decoder.endOfInput();
+            decoder.next();
+        }
+    }
+
+    @Test
+    public void cbor_readsEightByteCount() throws IOException {
+        final byte[] pack = {(byte) 0x9B, 0, 0, 0, 0, 0, 0, 0, 1, (byte) 0xA1, 0x00, 0x61, 0x61};
+
+        try (final SenMLFeedDecoder decoder = SenMLFeedDecoder.initCbor()) {
+            final List<SenMLRecord> records = feedInChunks(decoder, pack, 3);
+            assertEquals(1, records.size());
+            assertEquals("a", records.get(0).getValue(Label.NAME));
+            assertTrue(decoder.isFinished());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void cbor_rejectsNegativeCount() throws IOException {
+        final byte[] pack = {(byte) 0x9B, (byte) 0x80, 0, 0, 0, (byte) 0x80, 0, 0, 0, (byte) 0xA0};
+
+        try (final SenMLFeedDecoder decoder = SenMLFeedDecoder.initCbor()) {
+            decoder.feed(pack);
+            decoder.next();
+        }
+    }
+
+    @Test
+    public void cbor_internsStrings() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (final SenMLWriter writer = SenMLWriter.initCbor(outputStream)) {
+            writer.addRecord(Label.NAME.attachValue(new String("temp")));
+            writer.addRecord(Label.NAME.attachValue(new String("temp")));
+        }
+
+        try (final SenMLFeedDecoder decoder = SenMLFeedDecoder.initCbor().withInterner(new SenMLInterner(16))) {
+            final List<SenMLRecord> records = feedInChunks(decoder, outputStream.toByteArray(), 4);
+            assertSame(records.get(0).getValue(Label.NAME), records.get(1).getValue(Label.NAME));
+        }
+    }
+
+    private static List<SenMLRecord> feedInChunks(final SenMLFeedDecoder decoder, final byte[] data,
+                                                  final int chunkSize) throws IOException {
+        final List<SenMLRecord> records = new ArrayList<>();
+
+        for (int offset = 0; offset < data.length; offset += chunkSize) {
+            decoder.feed(Arrays.copyOfRange(data, offset, Math.min(data.length, offset + chunkSize)));
+
+            SenMLRecord record;
+            while ((record = decoder.next()) != null) {
+                records.add(record);
+            }
+        }
+        decoder.endOfInput();
+        assertNull(decoder.next());
+
+        return records;
+    }
+
+    private static void assertPack(final List<SenMLRecord> records) {
+        assertEquals(3, records.size());
+        assertEquals(Arrays.asList(Label.BASE_NAME, Label.BASE_TIME, Label.NAME, Label.UNIT, Label.VALUE), records.get(0).getLabels());
+        assertEquals(20.5, records.get(0).getValue(Label.VALUE), EPSILON);
+        assertEquals(Arrays.asList(Label.NAME, Label.STRING_VALUE), records.get(1).getLabels());
+        assertEquals("on", records.get(1).getValue(Label.STRING_VALUE));
+        assertTrue(records.get(2).getValue(Label.BOOLEAN_VALUE));
+        assertEquals(-1.0, records.get(2).getValue(Label.TIME), EPSILON);
+    }
+
+}
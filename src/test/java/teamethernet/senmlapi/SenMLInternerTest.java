@@ -0,0 +1,132 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package teamethernet.senmlapi;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class SenMLInternerTest {
+
+    private static final String PACK = "[{\"bn\":\"dev:\",\"n\":\"temp\",\"u\":\"Cel\",\"v\":20.0},{\"n\":\"temp\",\"u\":\"Cel\",\"v\":21.0}]";
+
+    @Test
+    public void returnsCanonicalInstances() {
+        final SenMLInterner interner = new SenMLInterner(16);
+        final String first = interner.intern(new String("temperature"));
+
+        assertSame(first, interner.intern(new String("temperature")));
+        assertSame(first, interner.intern("a temperature".toCharArray(), 2, 11));
+        assertEquals("temp", interner.intern("temperature".toCharArray(), 0, 4));
+    }
+
+    @Test
+    public void neverStoresLongStrings() {
+        final SenMLInterner interner = new SenMLInterner(16, 4);
+
+        assertSame(interner.intern("abcd"), interner.intern(new String("abcd")));
+        assertNotSame(interner.intern("abcde".toCharArray(), 0, 5), interner.intern("abcde".toCharArray(), 0, 5));
+    }
+
+    @Test
+    public void collidingStringsReplaceEachOther() {
+        final SenMLInterner interner = new SenMLInterner(2);
+        final String first = interner.intern(new String("a"));
+
+        interner.intern("b");
+        assertSame(first, interner.intern(new String("a")));
+
+        interner.intern("c");
+        assertNotSame(first, interner.intern(new String("a")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyCapacity() {
+        new SenMLInterner(0);
+    }
+
+    @Test
+    public void json_sharesStringsBetweenPacks() throws IOException {
+        final SenMLInterner interner = new SenMLInterner(64);
+        final SenMLAPI<JsonFormatter> first = SenMLAPI.initJson(PACK.getBytes(), interner);
+        final SenMLAPI<JsonFormatter> second = SenMLAPI.initJson(PACK.getBytes(), interner);
+
+        assertSame(first.getValue(Label.NAME, 0), first.getValue(Label.NAME, 1));
+        assertSame(first.getValue(Label.UNIT, 1), second.getValue(Label.UNIT, 0));
+        assertEquals(21.0, second.getValue(Label.VALUE, 1), Math.ulp(1.0));
+    }
+
+    @Test
+    public void cbor_sharesStringsBetweenPacks() throws IOException {
+        final byte[] cbor = SenMLTranscoder.jsonToCbor().transcode(PACK.getBytes());
+        final SenMLInterner interner = new SenMLInterner(64);
+        final SenMLAPI<CborFormatter> first = SenMLAPI.initCbor(cbor, interner);
+        final SenMLAPI<CborFormatter> second = SenMLAPI.initCbor(cbor, interner);
+
+        assertEquals("dev:", first.getValue(Label.BASE_NAME, 0));
+        assertSame(first.getValue(Label.NAME, 0), second.getValue(Label.NAME, 1));
+    }
+
+    @Test
+    public void json_readerInternsStrings() throws IOException {
+        final SenMLInterner interner = new SenMLInterner(64);
+
+        try (final SenMLReader reader = SenMLReader.initJson(ByteBuffer.wrap(PACK.getBytes())).withInterner(interner)) {
+            final SenMLRecord first = reader.next();
+            final SenMLRecord second = reader.next();
+
+            assertSame(first.getValue(Label.NAME), second.getValue(Label.NAME));
+            assertSame(first.getValue(Label.UNIT), second.getValue(Label.UNIT));
+        }
+    }
+
+    @Test
+    public void cbor_readerInternsStrings() throws IOException {
+        final byte[] cbor = SenMLTranscoder.jsonToCbor().transcode(PACK.getBytes());
+        final SenMLInterner interner = new SenMLInterner(64);
+
+        try (final SenMLReader reader = SenMLReader.initCbor(ByteBuffer.wrap(cbor)).withInterner(interner)) {
+            assertSame(reader.next().getValue(Label.NAME), reader.next().getValue(Label.NAME));
+        }
+    }
+
+}
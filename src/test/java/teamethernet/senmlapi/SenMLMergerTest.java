@@ -0,0 +1,117 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package teamethernet.senmlapi;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class SenMLMergerTest {
+
+    @Test
+    public void mergesJsonAndCborByResolvedTime() throws IOException {
+        final String first = "[{\"bn\":\"a:\",\"bt\":100.0,\"n\":\"x\",\"v\":1.0},{\"n\":\"x\",\"t\":20.0,\"v\":2.0}]";
+        final String second = "[{\"bn\":\"b:\",\"bt\":110.0,\"bu\":\"W\",\"n\":\"y\",\"v\":3.0},{\"n\":\"y\",\"t\":10.0,\"v\":4.0}]";
+
+        final SenMLAPI<CborFormatter> third = SenMLAPI.initCbor();
+        third.addRecord(Label.NAME.attachValue("c"), Label.TIME.attachValue(105.0), Label.BOOLEAN_VALUE.attachValue(true));
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (final SenMLWriter writer = SenMLWriter.initJson(outputStream)) {
+            final long written = SenMLMerger.merge(Arrays.asList(
+                    SenMLReader.initJson(ByteBuffer.wrap(first.getBytes())),
+                    SenMLReader.initJson(ByteBuffer.wrap(second.getBytes())),
+                    SenMLReader.initCbor(ByteBuffer.wrap(third.getSenML()))), writer);
+            assertEquals(5, written);
+        }
+
+        assertEquals("[{\"n\":\"a:x\",\"v\":1.0,\"t\":100.0},{\"n\":\"c\",\"vb\":true,\"t\":105.0}," +
+                "{\"n\":\"b:y\",\"u\":\"W\",\"v\":3.0,\"t\":110.0},{\"n\":\"a:x\",\"v\":2.0,\"t\":120.0}," +
+                "{\"n\":\"b:y\",\"u\":\"W\",\"v\":4.0,\"t\":120.0}]", outputStream.toString());
+    }
+
+    @Test
+    public void resolvesRelativeTimes() throws IOException {
+        final String pack = "[{\"n\":\"x\",\"t\":-5.0,\"v\":1.0}]";
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (final SenMLWriter writer = SenMLWriter.initJson(outputStream)) {
+            SenMLMerger.merge(Collections.singletonList(SenMLReader.initJson(ByteBuffer.wrap(pack.getBytes()))), writer, 1.0e9);
+        }
+
+        assertEquals("[{\"n\":\"x\",\"v\":1.0,\"t\":9.99999995E8}]", outputStream.toString());
+    }
+
+    @Test
+    public void mergesNoSources() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (final SenMLWriter writer = SenMLWriter.initJson(outputStream)) {
+            assertEquals(0, SenMLMerger.merge(Collections.<SenMLReader>emptyList(), writer));
+        }
+
+        assertEquals("[]", outputStream.toString());
+    }
+
+    @Test
+    public void cbor_mergeKeepsByteStringDataValues() throws IOException {
+        final SenMLAPI<CborFormatter> pack = SenMLAPI.initCbor();
+        pack.addRecord(Label.BASE_NAME.attachValue("dev:"), Label.NAME.attachValue("a"),
+                Label.DATA_VALUE.attachData(new byte[]{1, 2, 3}));
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (final SenMLWriter writer = SenMLWriter.initCbor(outputStream)) {
+            SenMLMerger.merge(Collections.singletonList(SenMLReader.initCbor(ByteBuffer.wrap(pack.getSenML()))), writer);
+        }
+
+        try (final SenMLReader reader = SenMLReader.initCbor(ByteBuffer.wrap(outputStream.toByteArray()))) {
+            final SenMLRecord record = reader.next();
+            assertEquals("dev:a", record.getValue(Label.NAME));
+            assertArrayEquals(new byte[]{1, 2, 3}, record.getData());
+        }
+    }
+
+}
@@ -0,0 +1,258 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SenMLReaderTest {
+
+    private static final double EPSILON = Math.ulp(1.0);
+
+    @Test
+    public void json_readsOneRecordAtATime() throws IOException {
+        final String inputJson = "[{\"bn\":\"mac:urn:dev:3290\",\"v\":30.0,\"vb\":false},{\"bn\":\"hello\",\"ut\":0.01,\"bt\":0.0,\"bu\":\"Watt\"},{\"s\":3040.201}]";
+
+        try (final SenMLReader reader = SenMLReader.initJson(new ByteArrayInputStream(inputJson.getBytes()))) {
+            final SenMLRecord record1 = reader.next();
+            assertEquals(Arrays.asList(Label.BASE_NAME, Label.VALUE, Label.BOOLEAN_VALUE), record1.getLabels());
+            assertEquals("mac:urn:dev:3290", record1.getValue(Label.BASE_NAME));
+            assertEquals(30.0, record1.getValue(Label.VALUE), EPSILON);
+            assertFalse(record1.getValue(Label.BOOLEAN_VALUE));
+
+            final SenMLRecord record2 = reader.next();
+            assertEquals("Watt", record2.getValue(Label.BASE_UNIT));
+            assertEquals(0.01, record2.getValue(Label.UPDATE_TIME), EPSILON);
+            assertNull(record2.getValue(Label.VALUE));
+
+            final SenMLRecord record3 = reader.next();
+            assertEquals(3040.201, record3.getValue(Label.SUM), EPSILON);
+
+            assertNull(reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void json_skipsUnknownLabels() throws IOException {
+        final String inputJson = "[{\"n\":\"temp\",\"x\":{\"nested\":[1,2,3]},\"bver\":10}]";
+
+        try (final SenMLReader reader = SenMLReader.initJson(ByteBuffer.wrap(inputJson.getBytes()))) {
+            final SenMLRecord record = reader.next();
+            assertEquals(Arrays.asList(Label.NAME, Label.BASE_VERSION), record.getLabels());
+            assertEquals(10, (int) record.getValue(Label.BASE_VERSION));
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void json_readsFromDirectBuffer() throws IOException {
+        final byte[] inputJson = "[{\"n\":\"temp\",\"v\":21.5}]".getBytes();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(inputJson.length);
+        buffer.put(inputJson).flip();
+
+        try (final SenMLReader reader = SenMLReader.initJson(buffer)) {
+            assertEquals(21.5, reader.next().getValue(Label.VALUE), EPSILON);
+            assertNull(reader.next());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void json_rejectsNonArrayPack() throws IOException {
+        try (final SenMLReader reader = SenMLReader.initJson(ByteBuffer.wrap("{\"n\":\"temp\"}".getBytes()))) {
+            reader.next();
+        }
+    }
+
+    @Test
+    public void cbor_readsOneRecordAtATime() throws IOException {
+        final String cborData = "82A2622D32766D61633A75726E3A6465763A33323930333239303332622D3100A3622D32756D61633A75726E3A6465763A33323930333239343261336568656C6C6F6137F94F80";
+
+        try (final SenMLReader reader = SenMLReader.initCbor(new ByteArrayInputStream(hexStringToByteArray(cborData)))) {
+            final SenMLRecord record1 = reader.next();
+            assertEquals("mac:urn:dev:3290329032", record1.getValue(Label.BASE_NAME));
+            assertEquals(0, (int) record1.getValue(Label.BASE_VERSION));
+
+            final SenMLRecord record2 = reader.next();
+            assertEquals("mac:urn:dev:329032942", record2.getValue(Label.BASE_NAME));
+            assertEquals("hello", record2.getValue(Label.STRING_VALUE));
+            assertEquals(30.0, record2.getValue(Label.UPDATE_TIME), EPSILON);
+
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void cbor_readsIntegerKeys() throws IOException {
+        final String cborData = "81A221766D61633A75726E3A6465763A3332393033323930333202FB403E000000000000";
+
+        try (final SenMLReader reader = SenMLReader.initCbor(ByteBuffer.wrap(hexStringToByteArray(cborData)))) {
+            final SenMLRecord record = reader.next();
+            assertEquals("mac:urn:dev:3290329032", record.getValue(Label.BASE_NAME));
+            assertEquals(30.0, record.getValue(Label.VALUE), EPSILON);
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void json_filtersByNameAndKeepsBaseFields() throws IOException {
+        final String inputJson = "[{\"bn\":\"dev:\",\"bt\":100.0,\"n\":\"temp\",\"v\":20.0},{\"n\":\"hum\",\"v\":40.0},{\"n\":\"temp\",\"t\":10.0,\"v\":21.0}]";
+
+        try (final SenMLReader reader = SenMLReader.initJson(new ByteArrayInputStream(inputJson.getBytes()))
+                .withFilter(SenMLFilter.namePrefix("dev:hum"))) {
+            final SenMLRecord record = reader.next();
+            assertEquals(Arrays.asList(Label.BASE_NAME, Label.BASE_TIME, Label.NAME, Label.VALUE), record.getLabels());
+
+            final ResolvedRecord resolved = new SenMLResolver().resolve(record);
+            assertEquals("dev:hum", resolved.getName());
+            assertEquals(100.0, resolved.getTime(), EPSILON);
+            assertEquals(40.0, record.getValue(Label.VALUE), EPSILON);
+
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void json_filtersByTimeRangeAndLabels() throws IOException {
+        final String inputJson = "[{\"bt\":100.0,\"n\":\"a\",\"v\":1.0},{\"n\":\"b\",\"t\":5.0,\"vs\":\"x\"},{\"n\":\"c\",\"t\":5.0,\"v\":3.0},{\"n\":\"d\",\"t\":10.0,\"v\":4.0}]";
+        final SenMLFilter filter = SenMLFilter.timeRange(101.0, 110.0).and(SenMLFilter.hasLabels(Label.VALUE));
+
+        try (final SenMLReader reader = SenMLReader.initJson(ByteBuffer.wrap(inputJson.getBytes())).withFilter(filter)) {
+            final SenMLRecord record = reader.next();
+            assertEquals(Arrays.asList(Label.BASE_TIME, Label.NAME, Label.TIME, Label.VALUE), record.getLabels());
+            assertEquals("c", record.getValue(Label.NAME));
+
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void json_filterSkipsNestedValuesOfRejectedRecords() throws IOException {
+        final String inputJson = "[{\"n\":\"skip\",\"x\":{\"nested\":[1,2,3]},\"v\":1.0},{\"n\":\"keep\",\"v\":2.0}]";
+
+        try (final SenMLReader reader = SenMLReader.initJson(ByteBuffer.wrap(inputJson.getBytes()))
+                .withFilter(SenMLFilter.name("keep"::equals))) {
+            assertEquals(2.0, reader.next().getValue(Label.VALUE), EPSILON);
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void json_filterKeepsRecordRevivedByLateBaseName() throws IOException {
+        final String inputJson = "[{\"n\":\"x\",\"v\":1,\"bn\":\"a/\"}]";
+
+        try (final SenMLReader reader = SenMLReader.initJson(ByteBuffer.wrap(inputJson.getBytes()))
+                .withFilter(SenMLFilter.namePrefix("a/"))) {
+            final SenMLRecord record = reader.next();
+            assertEquals(Arrays.asList(Label.BASE_NAME, Label.NAME, Label.VALUE), record.getLabels());
+            assertEquals(1.0, record.getValue(Label.VALUE), EPSILON);
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void json_filterKeepsRecordRevivedByLateBaseTime() throws IOException {
+        final String inputJson = "[{\"t\":5.0,\"v\":2.0,\"vs\":\"on\",\"bt\":100.0},{\"t\":5.0,\"v\":3.0}]";
+
+        try (final SenMLReader reader = SenMLReader.initJson(ByteBuffer.wrap(inputJson.getBytes()))
+                .withFilter(SenMLFilter.timeRange(100, 110))) {
+            final SenMLRecord first = reader.next();
+            assertEquals(Arrays.asList(Label.BASE_TIME, Label.TIME, Label.VALUE, Label.STRING_VALUE), first.getLabels());
+            assertEquals(2.0, first.getValue(Label.VALUE), EPSILON);
+            assertEquals("on", first.getValue(Label.STRING_VALUE));
+
+            assertEquals(3.0, reader.next().getValue(Label.VALUE), EPSILON);
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void json_filterAcceptsLateBaseFieldsWhenNothingWasSkipped() throws IOException {
+        final String inputJson = "[{\"n\":\"x\",\"bn\":\"a/\",\"v\":1.0},{\"t\":5.0,\"bt\":100.0,\"n\":\"y\",\"v\":2.0}]";
+
+        try (final SenMLReader reader = SenMLReader.initJson(ByteBuffer.wrap(inputJson.getBytes()))
+                .withFilter(SenMLFilter.namePrefix("a/").and(SenMLFilter.timeRange(0, 110)))) {
+            final SenMLRecord first = reader.next();
+            assertEquals(Arrays.asList(Label.BASE_NAME, Label.NAME, Label.VALUE), first.getLabels());
+
+            final SenMLRecord second = reader.next();
+            assertEquals(Arrays.asList(Label.BASE_TIME, Label.TIME, Label.NAME, Label.VALUE), second.getLabels());
+            assertEquals(105.0, new SenMLResolver().resolve(second).getTime(), EPSILON);
+
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void json_filterReadsTimeOfRejectedRecords() throws IOException {
+        final String inputJson = "[{\"n\":\"x\",\"t\":5.0,\"v\":1.0,\"bn\":\"a/\"},{\"n\":\"y\",\"v\":2.0}]";
+
+        try (final SenMLReader reader = SenMLReader.initJson(ByteBuffer.wrap(inputJson.getBytes()))
+                .withFilter(SenMLFilter.namePrefix("a/").and(SenMLFilter.timeRange(10, 20)))) {
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void cbor_filtersByName() throws IOException {
+        final String cborData = "82A221766D61633A75726E3A6465763A3332393033323930333202FB403E000000000000A200617802FB3FF0000000000000";
+
+        try (final SenMLReader reader = SenMLReader.initCbor(ByteBuffer.wrap(hexStringToByteArray(cborData)))
+                .withFilter(SenMLFilter.name("mac:urn:dev:3290329032x"::equals))) {
+            final SenMLRecord record = reader.next();
+            assertEquals(Arrays.asList(Label.BASE_NAME, Label.NAME, Label.VALUE), record.getLabels());
+            assertNull(reader.next());
+        }
+    }
+
+    private static byte[] hexStringToByteArray(String s) {
+        byte[] data = new byte[s.length() / 2];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ((Character.digit(s.charAt(i * 2), 16) << 4)
+                    + Character.digit(s.charAt(i * 2 + 1), 16));
+        }
+        return data;
+    }
+
+}
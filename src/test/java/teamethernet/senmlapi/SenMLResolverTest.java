@@ -0,0 +1,138 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SenMLResolverTest {
+
+    private static final double EPSILON = Math.ulp(1.0);
+    private static final double TIME_EPSILON = 1e-6;
+
+    private static final String MULTIPLE_DATAPOINTS = "[" +
+            "{\"bn\":\"urn:dev:ow:10e2073a0108006:\",\"bt\":1.276020076001e+09,\"bu\":\"A\",\"bver\":5,\"n\":\"voltage\",\"u\":\"V\",\"v\":120.1}," +
+            "{\"n\":\"current\",\"t\":-5,\"v\":1.2}," +
+            "{\"n\":\"current\",\"t\":-4,\"v\":1.3}," +
+            "{\"bv\":10.0,\"bs\":100.0,\"n\":\"energy\",\"t\":-3,\"v\":0.5,\"s\":2.5}]";
+
+    @Test
+    public void resolvesBaseFieldsFromReader() throws IOException {
+        final List<ResolvedRecord> records = new ArrayList<>();
+        final SenMLResolver resolver = new SenMLResolver();
+
+        try (final SenMLReader reader = SenMLReader.initJson(ByteBuffer.wrap(MULTIPLE_DATAPOINTS.getBytes()))) {
+            SenMLRecord record;
+            while ((record = reader.next()) != null) {
+                records.add(resolver.resolve(record));
+            }
+        }
+
+        assertResolved(records);
+    }
+
+    @Test
+    public void resolvesBaseFieldsFromJson() throws IOException {
+        assertResolved(SenMLAPI.initJson(MULTIPLE_DATAPOINTS.getBytes()).getResolvedRecords());
+    }
+
+    @Test
+    public void resolvesBaseFieldsFromCbor() throws IOException {
+        final SenMLAPI<JsonFormatter> json = SenMLAPI.initJson(MULTIPLE_DATAPOINTS.getBytes());
+        final SenMLAPI<CborFormatter> cbor = SenMLAPI.initCbor();
+
+        for (int i = 0; i < json.getRecords().size(); i++) {
+            cbor.addRecord(json.getSenMLRecord(i).getPairs().toArray(new Label.Pair[0]));
+        }
+
+        assertResolved(SenMLAPI.initCbor(cbor.getSenML()).getResolvedRecords());
+    }
+
+    @Test
+    public void resolvesRelativeTimeAgainstNow() {
+        final SenMLResolver resolver = new SenMLResolver(1000.0);
+
+        final ResolvedRecord relative = resolver.resolve(SenMLRecord.of(Label.NAME.attachValue("a"), Label.TIME.attachValue(-5.0)));
+        final ResolvedRecord absolute = resolver.resolve(SenMLRecord.of(Label.NAME.attachValue("a"), Label.TIME.attachValue(1.5e9)));
+
+        assertEquals(995.0, relative.getTime(), EPSILON);
+        assertEquals(1.5e9, absolute.getTime(), EPSILON);
+    }
+
+    private static void assertResolved(final List<ResolvedRecord> records) {
+        assertEquals(4, records.size());
+
+        assertEquals("urn:dev:ow:10e2073a0108006:voltage", records.get(0).getName());
+        assertEquals("V", records.get(0).getUnit());
+        assertEquals(1.276020076001e+09, records.get(0).getTime(), TIME_EPSILON);
+        assertEquals(120.1, records.get(0).getValue(), EPSILON);
+
+        assertEquals("urn:dev:ow:10e2073a0108006:current", records.get(1).getName());
+        assertEquals("A", records.get(1).getUnit());
+        assertEquals(1.276020071001e+09, records.get(1).getTime(), TIME_EPSILON);
+        assertEquals(1.2, records.get(1).getValue(), EPSILON);
+
+        assertEquals(1.276020072001e+09, records.get(2).getTime(), TIME_EPSILON);
+
+        assertEquals("urn:dev:ow:10e2073a0108006:energy", records.get(3).getName());
+        assertEquals(10.5, records.get(3).getValue(), EPSILON);
+        assertTrue(records.get(3).hasSum());
+        assertEquals(102.5, records.get(3).getSum(), EPSILON);
+    }
+
+    @Test
+    public void cbor_resolvesByteStringDataValues() throws IOException {
+        final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor();
+        senMLAPI.addRecord(Label.NAME.attachValue("a"), Label.DATA_VALUE.attachData(new byte[]{1, 2, 3}));
+        senMLAPI.addRecord(Label.NAME.attachValue("b"), Label.DATA_VALUE.attachValue("BAU"));
+
+        final List<ResolvedRecord> records = SenMLAPI.initCbor(senMLAPI.getSenML()).getResolvedRecords();
+        assertArrayEquals(new byte[]{1, 2, 3}, records.get(0).getData());
+        assertEquals("AQID", records.get(0).getDataValue());
+        assertArrayEquals(new byte[]{1, 2, 3}, records.get(0).getDataPair().getData());
+        assertArrayEquals(new byte[]{4, 5}, records.get(1).getData());
+        assertNull(records.get(1).getDataPair().getData());
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package teamethernet.senmlapi;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SenMLTimeIndexTest {
+
+    private static final double EPSILON = Math.ulp(1.0);
+
+    private static final String PACK = "[" +
+            "{\"bn\":\"dev:\",\"bt\":100.0,\"n\":\"a\",\"v\":1.0}," +
+            "{\"n\":\"b\",\"t\":-5.0,\"v\":2.0}," +
+            "{\"n\":\"c\",\"t\":10.0,\"v\":3.0}," +
+            "{\"n\":\"d\",\"t\":-5.0,\"v\":4.0}," +
+            "{\"bt\":200.0,\"n\":\"e\",\"v\":5.0}]";
+
+    @Test
+    public void json_rangeReturnsIndicesInTimeOrder() throws IOException {
+        final SenMLTimeIndex index = SenMLTimeIndex.of(SenMLAPI.initJson(PACK.getBytes()));
+
+        assertEquals(5, index.size());
+        assertArrayEquals(new int[]{1, 3, 0, 2, 4}, index.range(0, 1000));
+        assertArrayEquals(new int[]{1, 3, 0}, index.range(95, 110));
+        assertArrayEquals(new int[]{2}, index.range(110, 200));
+        assertArrayEquals(new int[0], index.range(111, 200));
+        assertArrayEquals(new int[0], index.range(300, 100));
+        assertEquals(0, index.count(300, 100));
+        assertEquals(2, index.count(95, 100));
+        assertEquals(110.0, index.getTime(2), EPSILON);
+    }
+
+    @Test
+    public void json_returnsResolvedRecords() throws IOException {
+        final SenMLTimeIndex index = SenMLTimeIndex.read(SenMLReader.initJson(ByteBuffer.wrap(PACK.getBytes())));
+
+        final List<ResolvedRecord> records = index.getResolvedRecords(100, 250);
+        assertEquals(3, records.size());
+        assertEquals("dev:a", records.get(0).getName());
+        assertEquals("dev:c", records.get(1).getName());
+        assertEquals("dev:e", records.get(2).getName());
+        assertEquals(200.0, records.get(2).getTime(), EPSILON);
+    }
+
+    @Test
+    public void cbor_indexesLazyPack() throws IOException {
+        final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor();
+        senMLAPI.addRecord(Label.BASE_TIME.attachValue(10.0), Label.NAME.attachValue("x"), Label.TIME.attachValue(3.0));
+        senMLAPI.addRecord(Label.NAME.attachValue("y"), Label.TIME.attachValue(1.0));
+        senMLAPI.addRecord(Label.NAME.attachValue("z"), Label.TIME.attachValue(2.0));
+
+        final SenMLTimeIndex index = SenMLTimeIndex.of(LazySenMLPack.initCbor(senMLAPI.getSenML()));
+
+        assertArrayEquals(new int[]{1, 2, 0}, index.range(11, 14));
+        assertEquals("z", index.getResolvedRecord(2).getName());
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class SenMLTranscoderTest {
+
+    private static final String PACK = "[{\"bn\":\"urn:dev:ow:10e2073a01080063:\",\"bver\":5,\"n\":\"voltage\",\"u\":\"V\",\"v\":120.1}," +
+            "{\"n\":\"current\",\"t\":-5.0,\"vb\":true},{\"n\":\"label\",\"vs\":\"on\",\"foo\":[1,{\"n\":2}]}]";
+
+    @Test
+    public void jsonToCbor_matchesSenMLWriter() throws IOException {
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+
+        try (final SenMLWriter writer = SenMLWriter.initCbor(expected)) {
+            writer.addRecord(Label.BASE_NAME.attachValue("dev:"), Label.BASE_VERSION.attachValue(5), Label.VALUE.attachValue(1.5));
+            writer.addRecord(Label.NAME.attachValue("a"), Label.STRING_VALUE.attachValue("on"), Label.BOOLEAN_VALUE.attachValue(true));
+        }
+
+        final String json = "[{\"bn\":\"dev:\",\"bver\":5,\"v\":1.5},{\"n\":\"a\",\"vs\":\"on\",\"vb\":true}]";
+
+        assertArrayEquals(expected.toByteArray(), SenMLTranscoder.jsonToCbor().transcode(json.getBytes()));
+    }
+
+    @Test
+    public void cborToJson_remapsKeys() throws IOException {
+        final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor();
+        senMLAPI.addRecord(Label.BASE_NAME.attachValue("dev:"), Label.VALUE.attachValue(1.5));
+        senMLAPI.addRecord(Label.NAME.attachValue("a"), Label.SUM.attachValue(2.0));
+
+        final byte[] json = SenMLTranscoder.cborToJson().transcode(senMLAPI.getSenML());
+
+        assertArrayEquals("[{\"bn\":\"dev:\",\"v\":1.5},{\"n\":\"a\",\"s\":2.0}]".getBytes(), json);
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        final byte[] cbor = SenMLTranscoder.jsonToCbor().transcode(PACK.getBytes());
+
+        final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor(cbor);
+        assertEquals("voltage", senMLAPI.getValue(Label.NAME, 0));
+        assertEquals(5, senMLAPI.getInt(Label.BASE_VERSION, 0));
+
+        final ByteArrayOutputStream json = new ByteArrayOutputStream();
+        SenMLTranscoder.cborToJson().transcode(new ByteArrayInputStream(cbor), json);
+
+        assertEquals(PACK, json.toString("UTF-8"));
+    }
+
+    @Test(expected = IOException.class)
+    public void notAPack() throws IOException {
+        SenMLTranscoder.jsonToCbor().transcode("{\"n\":\"a\"}".getBytes());
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedPack() throws IOException {
+        SenMLTranscoder.jsonToCbor().transcode("[{\"n\":\"a\"}".getBytes());
+    }
+
+    @Test
+    public void dataValues() throws IOException {
+        final byte[] cbor = SenMLTranscoder.jsonToCbor().transcode("[{\"vd\":\"-_8A\"}]".getBytes());
+
+        assertArrayEquals(new byte[]{(byte) 0x9F, (byte) 0xBF, 0x08, 0x43, (byte) 0xFB, (byte) 0xFF, 0x00, (byte) 0xFF, (byte) 0xFF}, cbor);
+        assertArrayEquals("[{\"vd\":\"-_8A\"}]".getBytes(), SenMLTranscoder.cborToJson().transcode(cbor));
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidDataValue() throws IOException {
+        SenMLTranscoder.jsonToCbor().transcode("[{\"vd\":\"not base64\"}]".getBytes());
+    }
+
+}
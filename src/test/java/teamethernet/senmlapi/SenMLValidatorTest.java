@@ -0,0 +1,125 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package teamethernet.senmlapi;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class SenMLValidatorTest {
+
+    private static final String VALID = "[" +
+            "{\"bn\":\"urn:dev:ow:10e2073a01080063:\",\"bt\":1.276020076001e+09,\"bu\":\"A\",\"bver\":5,\"n\":\"voltage\",\"u\":\"V\",\"v\":120.1}," +
+            "{\"n\":\"current\",\"t\":-5,\"v\":1.2}," +
+            "{\"n\":\"data\",\"vd\":\"-_8A\",\"custom\":{\"any\":[1,2]}}," +
+            "{\"n\":\"flag\",\"vb\":true,\"s\":1}]";
+
+    @Test
+    public void acceptsValidJson() throws IOException {
+        SenMLValidator.validateJson(VALID.getBytes());
+        SenMLValidator.validateJson(new ByteArrayInputStream(VALID.getBytes()));
+
+        assertEquals(4, SenMLAPI.initJsonValidated(VALID.getBytes()).size());
+    }
+
+    @Test
+    public void acceptsValidCbor() throws IOException {
+        final byte[] cbor = SenMLTranscoder.jsonToCbor().transcode(VALID.getBytes());
+
+        SenMLValidator.validateCbor(cbor);
+
+        assertEquals(4, SenMLAPI.initCborValidated(cbor).size());
+        assertEquals(4, SenMLAPI.initCborValidated(SenMLAPI.initCbor(cbor).getSenML()).size());
+    }
+
+    @Test
+    public void rejectsNonArrayPack() {
+        assertRejected("{\"n\":\"a\",\"v\":1}");
+        assertRejected("[1]");
+        assertRejected("[{\"n\":\"a\",\"v\":1}");
+    }
+
+    @Test
+    public void rejectsWrongValueTypes() {
+        assertRejected("[{\"n\":\"a\",\"v\":\"1\"}]");
+        assertRejected("[{\"n\":1,\"v\":1}]");
+        assertRejected("[{\"bver\":1.5,\"n\":\"a\"}]");
+        assertRejected("[{\"n\":\"a\",\"vb\":1}]");
+        assertRejected("[{\"n\":\"a\",\"vd\":\"not base64\"}]");
+    }
+
+    @Test
+    public void rejectsMoreThanOneValue() {
+        assertRejected("[{\"n\":\"a\",\"v\":1,\"vs\":\"1\"}]");
+        assertRejected("[{\"n\":\"a\",\"vb\":true,\"vd\":\"AA\"}]");
+    }
+
+    @Test
+    public void rejectsDuplicateLabels() {
+        assertRejected("[{\"n\":\"a\",\"n\":\"b\"}]");
+    }
+
+    @Test
+    public void rejectsMustUnderstandLabels() {
+        assertRejected("[{\"n\":\"a\",\"v\":1,\"custom_\":1}]");
+    }
+
+    @Test
+    public void rejectsInvalidNames() {
+        assertRejected("[{\"v\":1}]");
+        assertRejected("[{\"n\":\"-a\",\"v\":1}]");
+        assertRejected("[{\"n\":\"a b\",\"v\":1}]");
+        assertRejected("[{\"bn\":\"dev:\",\"n\":\"a\"},{\"n\":\"b#\"}]");
+    }
+
+    private static void assertRejected(final String pack) {
+        try {
+            SenMLValidator.validateJson(pack.getBytes());
+            fail("Expected " + pack + " to be rejected");
+        } catch (JsonParseException expected) {
+        } catch (IOException e) {
+            fail("Expected a JsonParseException for " + pack + " but got " + e);
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package teamethernet.senmlapi;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import static org.junit.Assert.*;
+
+public class SenMLWriterTest {
+
+    private static final double EPSILON = Math.ulp(1.0);
+
+    @Test
+    public void json_empty() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SenMLWriter.initJson(out).close();
+
+        assertArrayEquals("[]".getBytes(), out.toByteArray());
+    }
+
+    @Test
+    public void json_matchesSenMLAPI() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final SenMLAPI<JsonFormatter> senMLAPI = SenMLAPI.initJson();
+
+        try (final SenMLWriter writer = SenMLWriter.initJson(Channels.newChannel(out))) {
+            writer.addRecord(Label.BASE_NAME.attachValue("mac:urn:dev:3290329032"), Label.BASE_VERSION.attachValue(0));
+            writer.addRecord(SenMLRecord.of(Label.NAME.attachValue("temp"), Label.VALUE.attachValue(30.0), Label.BOOLEAN_VALUE.attachValue(false)));
+        }
+
+        senMLAPI.addRecord(Label.BASE_NAME.attachValue("mac:urn:dev:3290329032"), Label.BASE_VERSION.attachValue(0));
+        senMLAPI.addRecord(Label.NAME.attachValue("temp"), Label.VALUE.attachValue(30.0), Label.BOOLEAN_VALUE.attachValue(false));
+
+        assertArrayEquals(senMLAPI.getSenML(), out.toByteArray());
+    }
+
+    @Test
+    public void cbor_writesIntegerKeys() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (final SenMLWriter writer = SenMLWriter.initCbor(out)) {
+            writer.addRecord(Label.NAME.attachValue("a"), Label.BASE_VERSION.attachValue(10));
+        }
+
+        assertArrayEquals(new byte[]{(byte) 0x9F, (byte) 0xBF, 0x00, 0x61, 'a', 0x20, 0x0A, (byte) 0xFF, (byte) 0xFF}, out.toByteArray());
+    }
+
+    @Test
+    public void cbor_roundTrip() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (final SenMLWriter writer = SenMLWriter.initCbor(out)) {
+            writer.addRecord(Label.BASE_NAME.attachValue("mac:urn:dev:3290329032"), Label.VALUE.attachValue(30.0));
+            writer.addRecord(Label.NAME.attachValue("temp"), Label.STRING_VALUE.attachValue("hello"));
+        }
+
+        final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor(out.toByteArray());
+
+        assertEquals(2, senMLAPI.getRecords().size());
+        assertEquals("mac:urn:dev:3290329032", senMLAPI.getValue(Label.BASE_NAME, 0));
+        assertEquals(30.0, senMLAPI.getValue(Label.VALUE, 0), EPSILON);
+        assertEquals("temp", senMLAPI.getValue(Label.NAME, 1));
+        assertEquals("hello", senMLAPI.getValue(Label.STRING_VALUE, 1));
+    }
+
+    @Test
+    public void dataValues() throws IOException {
+        final ByteArrayOutputStream json = new ByteArrayOutputStream();
+        final ByteArrayOutputStream cbor = new ByteArrayOutputStream();
+
+        try (final SenMLWriter jsonWriter = SenMLWriter.initJson(json); final SenMLWriter cborWriter = SenMLWriter.initCbor(cbor)) {
+            jsonWriter.addRecord(Label.DATA_VALUE.attachData(new byte[]{(byte) 0xFB, (byte) 0xFF, 0x00}));
+            cborWriter.addRecord(Label.DATA_VALUE.attachData(new byte[]{(byte) 0xFB, (byte) 0xFF, 0x00}));
+        }
+
+        assertArrayEquals("[{\"vd\":\"-_8A\"}]".getBytes(), json.toByteArray());
+        assertArrayEquals(new byte[]{(byte) 0x9F, (byte) 0xBF, 0x08, 0x43, (byte) 0xFB, (byte) 0xFF, 0x00, (byte) 0xFF, (byte) 0xFF}, cbor.toByteArray());
+
+        try (final SenMLReader reader = SenMLReader.initCbor(new ByteArrayInputStream(cbor.toByteArray()))) {
+            final SenMLRecord record = reader.next();
+
+            assertArrayEquals(new byte[]{(byte) 0xFB, (byte) 0xFF, 0x00}, record.getData());
+            assertEquals("-_8A", record.getValue(Label.DATA_VALUE));
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+Copyright (c) 2019,
+Anton Bothin,
+Erik Flink,
+Nelly Friman,
+Jacob Klasmark,
+Valter Lundegårdh,
+Isak Olsson,
+Andreas Sjödin,
+Carina Wickström.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions
+are met:
+1. Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the distribution.
+3. The names of the authors may not be used to endorse or promote
+   products derived from this software without specific prior
+   written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE AUTHORS ``AS IS'' AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY
+DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package teamethernet.senmlapi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class SimpleSenMLMetricsTest {
+
+    private SimpleSenMLMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new SimpleSenMLMetrics();
+        SenMLAPI.setMetrics(metrics);
+    }
+
+    @After
+    public void tearDown() {
+        SenMLAPI.setMetrics(null);
+    }
+
+    @Test
+    public void countsDecodedPacks() throws IOException {
+        final byte[] pack = "[{\"n\":\"a\",\"v\":1.0,\"x\":1},{\"n\":\"b\",\"y\":true}]".getBytes();
+        SenMLAPI.initJson(pack);
+
+        final SimpleSenMLMetrics.Counters json = metrics.get(SenMLMetrics.Format.JSON);
+
+        assertEquals(1, json.getPacksDecoded());
+        assertEquals(2, json.getRecordsDecoded());
+        assertEquals(pack.length, json.getBytesDecoded());
+        assertEquals(2, json.getUnknownLabels());
+        assertEquals(1, json.getDecodeLatency().getCount());
+        assertEquals(0, metrics.get(SenMLMetrics.Format.CBOR).getPacksDecoded());
+    }
+
+    @Test
+    public void countsEncodedPacks() throws IOException {
+        final SenMLAPI<CborFormatter> senMLAPI = SenMLAPI.initCbor();
+        senMLAPI.addRecord(Label.NAME.attachValue("a"), Label.VALUE.attachValue(1.0));
+
+        final byte[] senML = senMLAPI.getSenML();
+        senMLAPI.getSenML(new ByteArrayOutputStream());
+        senMLAPI.getSenML(ByteBuffer.allocate(64));
+
+        final SimpleSenMLMetrics.Counters cbor = metrics.get(SenMLMetrics.Format.CBOR);
+
+        assertEquals(3, cbor.getPacksEncoded());
+        assertEquals(3, cbor.getRecordsEncoded());
+        assertEquals(3L * senML.length, cbor.getBytesEncoded());
+        assertEquals(3, cbor.getEncodeLatency().getCount());
+    }
+
+    @Test
+    public void countsDecodeFailures() throws IOException {
+        try {
+            SenMLAPI.initJson("[{\"n\":".getBytes());
+            fail("Expected a truncated pack to fail");
+        } catch (IOException expected) {
+        }
+
+        try (final SenMLReader reader = SenMLReader.initJson(new ByteArrayInputStream("{}".getBytes()))) {
+            reader.next();
+            fail("Expected a pack that is not an array to fail");
+        } catch (IOException expected) {
+        }
+
+        assertEquals(2, metrics.get(SenMLMetrics.Format.JSON).getDecodeFailures());
+        assertEquals(0, metrics.get(SenMLMetrics.Format.JSON).getPacksDecoded());
+    }
+
+    @Test
+    public void disabledMetricsAreNotCalled() throws IOException {
+        SenMLAPI.setMetrics(null);
+        SenMLAPI.initJson("[{\"n\":\"a\"}]".getBytes()).getSenML();
+
+        assertEquals(0, metrics.get(SenMLMetrics.Format.JSON).getPacksDecoded());
+        assertEquals(0, metrics.get(SenMLMetrics.Format.JSON).getPacksEncoded());
+    }
+
+    @Test
+    public void histogramPercentiles() {
+        final SimpleSenMLMetrics.Histogram histogram = new SimpleSenMLMetrics().get(SenMLMetrics.Format.JSON).getDecodeLatency();
+        assertEquals(0, histogram.getPercentile(99));
+
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(1000, histogram.getPercentile(100));
+        assertEquals(500, histogram.getPercentile(50), 500 * 0.125);
+        assertEquals(990, histogram.getPercentile(99), 990 * 0.125);
+    }
+
+    @Test
+    public void histogramBuckets() {
+        for (long value : new long[]{0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE}) {
+            final int bucket = SimpleSenMLMetrics.Histogram.bucket(value);
+
+            assertTrue(value <= SimpleSenMLMetrics.Histogram.upperBound(bucket));
+            assertTrue(bucket == 0 || value > SimpleSenMLMetrics.Histogram.upperBound(bucket - 1));
+        }
+    }
+
+}